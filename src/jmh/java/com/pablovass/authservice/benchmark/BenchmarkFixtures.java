@@ -0,0 +1,60 @@
+package com.pablovass.authservice.benchmark;
+
+import com.pablovass.authservice.config.PasswordEncoderConfig;
+import com.pablovass.authservice.service.JwtService;
+import com.pablovass.authservice.service.revocation.TokenRevocationService;
+import com.pablovass.authservice.service.token.JwtKeyRing;
+import com.pablovass.authservice.service.token.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Construye los servicios reales fuera del contexto de Spring, con la misma
+ * configuración que application-local.properties.
+ */
+final class BenchmarkFixtures {
+
+    static final String SECRET = "dronwars-super-secret-key-change-in-production-min-256-bits-required-for-hs256-algorithm";
+    static final String KEYRING_ENCRYPTION_KEY = "TpsjDxNees0FcheENRdcoceJzmrwXQCjBblWjM5Pjx0=";
+    static final long ACCESS_TOKEN_EXPIRATION = 900_000L;
+    static final long REFRESH_TOKEN_EXPIRATION = 604_800_000L;
+
+    private BenchmarkFixtures() {
+    }
+
+    static JwtService jwtService(String algorithm, RedisTemplate<String, String> redisTemplate) {
+        JwtKeyRing keyRing = new JwtKeyRing(redisTemplate);
+        ReflectionTestUtils.setField(keyRing, "secret", SECRET);
+        ReflectionTestUtils.setField(keyRing, "accessTokenExpiration", ACCESS_TOKEN_EXPIRATION);
+        ReflectionTestUtils.setField(keyRing, "algorithm", algorithm);
+        ReflectionTestUtils.setField(keyRing, "acceptLegacyHs256", true);
+        ReflectionTestUtils.setField(keyRing, "rotationInterval", 86_400_000L);
+        ReflectionTestUtils.setField(keyRing, "publishLead", 900_000L);
+        ReflectionTestUtils.setField(keyRing, "encryptionKey", KEYRING_ENCRYPTION_KEY);
+        ReflectionTestUtils.invokeMethod(keyRing, "init");
+
+        JwtService jwtService = new JwtService(
+            new VerifiedTokenCache(new SimpleMeterRegistry(), 10_000), keyRing, tokenRevocationService(redisTemplate));
+        ReflectionTestUtils.setField(jwtService, "accessTokenExpiration", ACCESS_TOKEN_EXPIRATION);
+        ReflectionTestUtils.invokeMethod(jwtService, "init");
+        return jwtService;
+    }
+
+    static TokenRevocationService tokenRevocationService(RedisTemplate<String, String> redisTemplate) {
+        return new TokenRevocationService(redisTemplate, new SimpleMeterRegistry(), ACCESS_TOKEN_EXPIRATION,
+            "auth:token-revocations", 100_000, 0.001);
+    }
+
+    static PasswordEncoder passwordEncoder(String algorithm, int bcryptStrength) {
+        PasswordEncoderConfig config = new PasswordEncoderConfig();
+        ReflectionTestUtils.setField(config, "algorithm", algorithm);
+        ReflectionTestUtils.setField(config, "calibrate", false);
+        ReflectionTestUtils.setField(config, "targetMillis", 250L);
+        ReflectionTestUtils.setField(config, "bcryptStrength", bcryptStrength);
+        ReflectionTestUtils.setField(config, "argon2Iterations", 2);
+        ReflectionTestUtils.setField(config, "argon2MemoryKib", 19_456);
+        return config.passwordEncoder();
+    }
+}
@@ -0,0 +1,71 @@
+package com.pablovass.authservice.benchmark;
+
+import com.pablovass.authservice.service.event.EncodedEvent;
+import com.pablovass.authservice.service.event.EventSchemaRegistry;
+import com.pablovass.authservice.service.event.UserEventCodec;
+import com.pablovass.authservice.service.event.UserLoggedInEvent;
+import com.pablovass.authservice.service.event.UserRegisteredEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización de los eventos de usuario con {@link UserEventCodec} en JSON y Avro binario.
+ * El tamaño de cada payload se imprime al inicio de cada fork para comparar ambos formatos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventSerializationBenchmark {
+
+    @Param({UserEventCodec.FORMAT_JSON, UserEventCodec.FORMAT_AVRO})
+    public String format;
+
+    private UserEventCodec codec;
+    private UserLoggedInEvent loggedInEvent;
+    private UserRegisteredEvent registeredEvent;
+    private EncodedEvent encodedLoggedIn;
+    private EncodedEvent encodedRegistered;
+
+    @Setup
+    public void setUp() {
+        codec = new UserEventCodec(new EventSchemaRegistry("schemas/user-events-registry.json"), format);
+        LocalDateTime now = LocalDateTime.now();
+        loggedInEvent = new UserLoggedInEvent(42L, "pilot", now);
+        registeredEvent = new UserRegisteredEvent(42L, "pilot", "pilot@dronwars.io", now);
+        encodedLoggedIn = codec.encode(loggedInEvent);
+        encodedRegistered = codec.encode(registeredEvent);
+        System.out.printf("%n[%s] UserLoggedInEvent=%d bytes, UserRegisteredEvent=%d bytes%n",
+            format, encodedLoggedIn.payload().length, encodedRegistered.payload().length);
+    }
+
+    @Benchmark
+    public EncodedEvent serializeUserLoggedIn() {
+        return codec.encode(loggedInEvent);
+    }
+
+    @Benchmark
+    public EncodedEvent serializeUserRegistered() {
+        return codec.encode(registeredEvent);
+    }
+
+    @Benchmark
+    public Object deserializeUserLoggedIn() {
+        return codec.decode(encodedLoggedIn.eventType(), encodedLoggedIn.contentType(),
+            encodedLoggedIn.schemaVersion(), encodedLoggedIn.payload());
+    }
+}
@@ -0,0 +1,74 @@
+package com.pablovass.authservice.benchmark;
+
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sustituto en proceso de Redis para los benchmarks: implementa solo las operaciones que
+ * usan los servicios (GET/SET/SETNX/DEL y hashes) sobre mapas concurrentes, sin red ni TTL.
+ * Así se mide el coste propio de construir claves y serializar valores.
+ */
+class InMemoryRedisTemplate extends RedisTemplate<String, String> {
+
+    private final Map<String, String> values = new ConcurrentHashMap<>();
+    private final Map<String, Map<Object, Object>> hashes = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> valueOperations = (ValueOperations<String, String>) Proxy.newProxyInstance(
+        ValueOperations.class.getClassLoader(),
+        new Class<?>[]{ValueOperations.class},
+        (proxy, method, args) -> switch (method.getName()) {
+            case "get" -> values.get((String) args[0]);
+            case "set" -> {
+                values.put((String) args[0], (String) args[1]);
+                yield null;
+            }
+            case "setIfAbsent" -> values.putIfAbsent((String) args[0], (String) args[1]) == null;
+            default -> throw new UnsupportedOperationException(method.getName());
+        }
+    );
+
+    @SuppressWarnings("unchecked")
+    private final HashOperations<String, Object, Object> hashOperations = (HashOperations<String, Object, Object>) Proxy.newProxyInstance(
+        HashOperations.class.getClassLoader(),
+        new Class<?>[]{HashOperations.class},
+        (proxy, method, args) -> switch (method.getName()) {
+            case "entries" -> Map.copyOf(hashes.getOrDefault((String) args[0], Map.of()));
+            case "get" -> hashes.getOrDefault((String) args[0], Map.of()).get(args[1]);
+            case "put" -> {
+                hashes.computeIfAbsent((String) args[0], key -> new ConcurrentHashMap<>()).put(args[1], args[2]);
+                yield null;
+            }
+            case "delete" -> {
+                Map<Object, Object> hash = hashes.getOrDefault((String) args[0], Map.of());
+                long removed = 0;
+                for (Object field : (Object[]) args[1]) {
+                    removed += hash.remove(field) != null ? 1 : 0;
+                }
+                yield removed;
+            }
+            default -> throw new UnsupportedOperationException(method.getName());
+        }
+    );
+
+    @Override
+    public ValueOperations<String, String> opsForValue() {
+        return valueOperations;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <HK, HV> HashOperations<String, HK, HV> opsForHash() {
+        return (HashOperations<String, HK, HV>) (HashOperations<String, ?, ?>) hashOperations;
+    }
+
+    @Override
+    public Boolean delete(String key) {
+        return values.remove(key) != null | hashes.remove(key) != null;
+    }
+}
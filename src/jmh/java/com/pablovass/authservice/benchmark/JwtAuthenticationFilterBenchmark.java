@@ -0,0 +1,68 @@
+package com.pablovass.authservice.benchmark;
+
+import com.pablovass.authservice.config.JwtAuthenticationFilter;
+import com.pablovass.authservice.service.JwtService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste del filtro JWT por petición autenticada, con una cadena de filtros vacía.
+ * Incluye la comprobación de revocación, que para un token no revocado no sale del proceso.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    private final FilterChain noopChain = (request, response) -> { };
+
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest authenticatedRequest;
+    private MockHttpServletRequest anonymousRequest;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        InMemoryRedisTemplate redisTemplate = new InMemoryRedisTemplate();
+        JwtService jwtService = BenchmarkFixtures.jwtService("ES256", redisTemplate);
+        filter = new JwtAuthenticationFilter(jwtService, BenchmarkFixtures.tokenRevocationService(redisTemplate),
+            new SimpleMeterRegistry());
+
+        authenticatedRequest = new MockHttpServletRequest("GET", "/api/auth/profile");
+        authenticatedRequest.addHeader("Authorization",
+                "Bearer " + jwtService.generateAccessToken(42L, "pilot", "ROLE_USER"));
+        anonymousRequest = new MockHttpServletRequest("POST", "/api/auth/login");
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public void authenticatedRequest(Blackhole blackhole) throws Exception {
+        filter.doFilter(authenticatedRequest, response, noopChain);
+        blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public void anonymousRequest() throws Exception {
+        filter.doFilter(anonymousRequest, response, noopChain);
+    }
+}
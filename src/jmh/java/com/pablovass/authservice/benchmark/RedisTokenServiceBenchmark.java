@@ -0,0 +1,75 @@
+package com.pablovass.authservice.benchmark;
+
+import com.pablovass.authservice.service.RedisTokenService;
+import com.pablovass.authservice.service.token.RefreshSession;
+import com.pablovass.authservice.service.token.RefreshToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de CPU de las sesiones de refresh token contra un Redis en proceso: generar y parsear
+ * tokens, hashear el secreto, construir entradas y listar las sesiones de un usuario con el
+ * máximo por defecto. Los scripts Lua (alta, rotación, revocación) solo pueden medirse contra un Redis real.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisTokenServiceBenchmark {
+
+    private static final Long USER_ID = 42L;
+    private static final int SESSIONS = 10;
+
+    private RedisTokenService redisTokenService;
+    private String refreshToken;
+
+    @Setup
+    public void setUp() {
+        InMemoryRedisTemplate redisTemplate = new InMemoryRedisTemplate();
+        redisTokenService = new RedisTokenService(redisTemplate, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(redisTokenService, "refreshTokenExpiration", BenchmarkFixtures.REFRESH_TOKEN_EXPIRATION);
+
+        Instant now = Instant.now();
+        for (int i = 0; i < SESSIONS; i++) {
+            RefreshToken token = RefreshToken.newSession(USER_ID);
+            redisTemplate.opsForHash().put("sessions:{" + USER_ID + "}", token.sessionId(), newEntry(token, now));
+            refreshToken = token.value();
+        }
+    }
+
+    @Benchmark
+    public String newSessionEntry() {
+        return newEntry(RefreshToken.newSession(USER_ID), Instant.now());
+    }
+
+    @Benchmark
+    public String parseAndHashRefreshToken() {
+        return RefreshToken.parse(refreshToken).secretHash();
+    }
+
+    @Benchmark
+    public List<RefreshSession> listSessions() {
+        return redisTokenService.listSessions(USER_ID);
+    }
+
+    private static String newEntry(RefreshToken token, Instant now) {
+        return RefreshSession.newEntry(token.secretHash(), now, now.plusMillis(BenchmarkFixtures.REFRESH_TOKEN_EXPIRATION),
+            "10.0.0.1", "Mozilla/5.0 (X11; Linux x86_64)");
+    }
+}
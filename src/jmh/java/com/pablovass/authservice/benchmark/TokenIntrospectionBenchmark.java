@@ -0,0 +1,102 @@
+package com.pablovass.authservice.benchmark;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.pablovass.authservice.controller.dto.IntrospectRequest;
+import com.pablovass.authservice.controller.dto.IntrospectResponse;
+import com.pablovass.authservice.service.JwtService;
+import com.pablovass.authservice.service.token.TokenIntrospectionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokens verificados por segundo con la introspección: una petición por token (como validan hoy los
+ * gateways) frente a un lote JSON o un stream NDJSON con {@value #TOKENS} tokens. Incluye la
+ * deserialización de la petición y la serialización de la respuesta, que es lo que amortiza el lote;
+ * el ahorro de round trips HTTP se suma a esto y sólo se ve con un cliente real.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenIntrospectionBenchmark {
+
+    static final int TOKENS = 100;
+
+    private static final JsonMapper JSON = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private TokenIntrospectionService introspectionService;
+    private List<byte[]> singleRequests;
+    private byte[] batchRequest;
+    private byte[] ndjsonRequest;
+
+    @Setup
+    public void setUp() throws IOException {
+        InMemoryRedisTemplate redisTemplate = new InMemoryRedisTemplate();
+        JwtService jwtService = BenchmarkFixtures.jwtService("ES256", redisTemplate);
+        introspectionService = new TokenIntrospectionService(jwtService,
+            BenchmarkFixtures.tokenRevocationService(redisTemplate), new SimpleMeterRegistry());
+
+        List<String> tokens = new ArrayList<>(TOKENS);
+        singleRequests = new ArrayList<>(TOKENS);
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < TOKENS; i++) {
+            String token = jwtService.generateAccessToken((long) i, "pilot-" + i, "ROLE_USER");
+            tokens.add(token);
+            singleRequests.add(JSON.writeValueAsBytes(new IntrospectRequest(List.of(token))));
+            ndjson.append("{\"token\":\"").append(token).append("\"}\n");
+        }
+        batchRequest = JSON.writeValueAsBytes(new IntrospectRequest(tokens));
+        ndjsonRequest = ndjson.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TOKENS)
+    public void singleTokenRequests(Blackhole blackhole) throws IOException {
+        for (byte[] request : singleRequests) {
+            blackhole.consume(handle(request));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TOKENS)
+    public byte[] batchRequest() throws IOException {
+        return handle(batchRequest);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TOKENS)
+    public long ndjsonStream() throws IOException {
+        return introspectionService.introspect(new ByteArrayInputStream(ndjsonRequest), OutputStream.nullOutputStream());
+    }
+
+    private byte[] handle(byte[] body) throws IOException {
+        IntrospectRequest request = JSON.readValue(body, IntrospectRequest.class);
+        return JSON.writeValueAsBytes(new IntrospectResponse(introspectionService.introspect(request.tokens())));
+    }
+}
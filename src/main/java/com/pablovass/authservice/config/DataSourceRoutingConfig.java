@@ -0,0 +1,75 @@
+package com.pablovass.authservice.config;
+
+import com.pablovass.authservice.repository.routing.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Enrutado de lecturas a réplicas, activo sólo si se configura {@code auth.datasource.replicas.urls}.
+ * El DataSource principal es un {@link LazyConnectionDataSourceProxy}: la conexión real se pide al
+ * ejecutar la primera sentencia, cuando ya se sabe si la transacción es readOnly. Las readOnly van a
+ * {@link ReplicaRoutingDataSource} y el resto (escrituras, Flyway, outbox) al pool del primario.
+ */
+@Configuration
+@ConditionalOnProperty(name = "auth.datasource.replicas.urls")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            HikariDataSource primaryDataSource,
+            DataSourceProperties properties,
+            MeterRegistry meterRegistry,
+            @Value("${auth.datasource.replicas.urls}") List<String> urls,
+            @Value("${auth.datasource.replicas.maximum-pool-size:10}") int maximumPoolSize,
+            @Value("${auth.datasource.replicas.connection-timeout:1000}") long connectionTimeout,
+            @Value("${auth.datasource.replicas.max-lag:1000}") long maxLagMillis
+    ) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(urls.get(i).trim());
+            replica.setUsername(properties.determineUsername());
+            replica.setPassword(properties.determinePassword());
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setReadOnly(true);
+            replica.setMaximumPoolSize(maximumPoolSize);
+            // Corto para que una réplica caída no retenga peticiones: se recurre al primario
+            replica.setConnectionTimeout(connectionTimeout);
+            // Sin conexiones al arrancar: una réplica caída no debe impedir el arranque
+            replica.setInitializationFailTimeout(-1);
+            replica.setMetricRegistry(meterRegistry);
+            replicas.put(replica.getPoolName(), replica);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLagMillis, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaRoutingDataSource);
+        return dataSource;
+    }
+}
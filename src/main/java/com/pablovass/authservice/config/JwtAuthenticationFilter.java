@@ -1,34 +1,67 @@
 package com.pablovass.authservice.config;
 
+import com.pablovass.authservice.domain.model.AuthenticatedUser;
 import com.pablovass.authservice.service.JwtService;
+import com.pablovass.authservice.service.revocation.TokenRevocationService;
+import com.pablovass.authservice.service.token.RoleAuthorities;
+import com.pablovass.authservice.service.token.VerifiedToken;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.List;
 
 /**
  * Filtro JWT para validar tokens en cada petición.
- * Extrae el userId del token y lo carga en el SecurityContext.
+ * Verifica el token una sola vez (con caché) y carga un {@link AuthenticatedUser} en el SecurityContext,
+ * con las authorities precalculadas para la máscara de roles del token.
+ * Los tokens revocados (logout) se descartan consultando el filtro local de {@link TokenRevocationService}.
+ * Cuenta el resultado de cada token recibido en {@code auth.jwt.filter{outcome}}.
  * HU-AUTH-04: Perfil Autenticado
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final String METRIC = "auth.jwt.filter";
+
     private final JwtService jwtService;
+    private final TokenRevocationService tokenRevocationService;
+    private final Counter validTokens;
+    private final Counter revokedTokens;
+    private final Counter expiredTokens;
+    private final Counter malformedTokens;
+    private final Counter badSignatureTokens;
+    private final Counter invalidTokens;
+
+    public JwtAuthenticationFilter(
+            JwtService jwtService,
+            TokenRevocationService tokenRevocationService,
+            MeterRegistry meterRegistry
+    ) {
+        this.jwtService = jwtService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.validTokens = meterRegistry.counter(METRIC, "outcome", "valid");
+        this.revokedTokens = meterRegistry.counter(METRIC, "outcome", "revoked");
+        this.expiredTokens = meterRegistry.counter(METRIC, "outcome", "expired");
+        this.malformedTokens = meterRegistry.counter(METRIC, "outcome", "malformed");
+        this.badSignatureTokens = meterRegistry.counter(METRIC, "outcome", "bad_signature");
+        this.invalidTokens = meterRegistry.counter(METRIC, "outcome", "invalid");
+    }
 
     @Override
     protected void doFilterInternal(
@@ -47,27 +80,47 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         try {
             final String jwt = authHeader.substring(7);
-            final Long userId = jwtService.extractUserId(jwt);
-            final String username = jwtService.extractUsername(jwt);
+            final VerifiedToken token = jwtService.verify(jwt);
+            final Long userId = token.userId();
+            final String username = token.username();
 
             // Si el token es válido y no hay autenticación previa
             if (userId != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                 
-                if (!jwtService.isTokenExpired(jwt)) {
-                    // Crear autenticación con userId como principal
+                if (token.isExpired()) {
+                    expiredTokens.increment();
+                } else if (tokenRevocationService.isRevoked(token)) {
+                    revokedTokens.increment();
+                    log.debug("JWT revocado para userId: {}", userId);
+                } else {
+                    // Crear autenticación con los datos del token como principal
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userId,  // Principal = userId (Long)
+                        AuthenticatedUser.from(token),
                         null,    // Credentials = null (no password)
-                        List.of(new SimpleGrantedAuthority("ROLE_USER"))
+                        RoleAuthorities.of(token.roleMask())
                     );
                     
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
                     
+                    validTokens.increment();
                     log.debug("✅ JWT válido para userId: {}, username: {}", userId, username);
                 }
             }
+        } catch (ExpiredJwtException e) {
+            expiredTokens.increment();
+            log.debug("JWT expirado: {}", e.getMessage());
+        } catch (SignatureException e) {
+            badSignatureTokens.increment();
+            log.warn("⚠️ JWT con firma inválida: {}", e.getMessage());
+        } catch (MalformedJwtException e) {
+            malformedTokens.increment();
+            log.warn("⚠️ JWT mal formado: {}", e.getMessage());
+        } catch (JwtException | IllegalArgumentException e) {
+            invalidTokens.increment();
+            log.warn("⚠️ JWT inválido: {}", e.getMessage());
         } catch (Exception e) {
+            invalidTokens.increment();
             log.error("❌ Error al procesar JWT: {}", e.getMessage());
             // No bloqueamos la petición, Spring Security manejará el 401
         }
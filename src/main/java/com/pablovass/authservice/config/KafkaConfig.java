@@ -1,22 +1,35 @@
 package com.pablovass.authservice.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
 import org.springframework.kafka.core.ProducerFactory;
-import org.springframework.kafka.support.serializer.JacksonJsonSerializer;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * Configuración de Kafka para la creación de topics y productores.
+ * Los eventos se serializan al escribirse en el outbox, por lo que el productor envía bytes.
+ * El topic se particiona por {@code userId} (clave del mensaje) y el productor agrupa envíos
+ * en lotes comprimidos; sus métricas se exportan como {@code kafka.producer.*}.
  */
 @Configuration
 public class KafkaConfig {
@@ -24,36 +37,96 @@ public class KafkaConfig {
     @Value("${kafka.topic.user-events}")
     private String userEventsTopic;
 
+    @Value("${kafka.topic.user-events.partitions:6}")
+    private int userEventsPartitions;
+
+    @Value("${kafka.topic.user-events.replicas:1}")
+    private int userEventsReplicas;
+
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    @Value("${kafka.producer.linger-ms:10}")
+    private int lingerMs;
+
+    @Value("${kafka.producer.batch-size:65536}")
+    private int batchSize;
+
+    @Value("${kafka.producer.compression-type:lz4}")
+    private String compressionType;
+
     @Bean
     public NewTopic userEventsTopic() {
         return TopicBuilder.name(userEventsTopic)
-                .partitions(1)
-                .replicas(1)
+                .partitions(userEventsPartitions)
+                .replicas(userEventsReplicas)
                 .build();
     }
 
     @Bean
-    public ProducerFactory<String, Object> producerFactory() {
+    public ProducerFactory<String, byte[]> producerFactory(MeterRegistry meterRegistry) {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JacksonJsonSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+
+        // Productor idempotente: los reintentos internos no duplican ni reordenan mensajes
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
 
-        // JacksonJsonSerializer por defecto en Spring Kafka 4.x ya usa un mapper
-        // mejorado
-        // que soporta JavaTimeModule (LocalDateTime) y Records de Java 21
-        // automáticamente.
-        JacksonJsonSerializer<Object> jsonSerializer = new JacksonJsonSerializer<>();
-        jsonSerializer.setAddTypeInfo(false);
+        // Lotes: esperar hasta linger.ms para llenar batch.size y comprimir el lote completo
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
 
-        return new DefaultKafkaProducerFactory<>(configProps, new StringSerializer(), jsonSerializer);
+        DefaultKafkaProducerFactory<String, byte[]> factory =
+            new DefaultKafkaProducerFactory<>(configProps, new StringSerializer(), new ByteArraySerializer());
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
     }
 
     @Bean
-    public KafkaTemplate<String, Object> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    public KafkaTemplate<String, byte[]> kafkaTemplate(ProducerFactory<String, byte[]> producerFactory, MeterRegistry meterRegistry) {
+        KafkaTemplate<String, byte[]> template = new KafkaTemplate<>(producerFactory);
+        Gauge.builder("kafka.producer.batch.fill.ratio", template, this::batchFillRatio)
+                .description("Tamaño medio de lote respecto a batch.size")
+                .register(meterRegistry);
+        return template;
+    }
+
+    /**
+     * Consumidor del filtro de disponibilidad: un grupo por instancia (todas reciben todas las altas)
+     * que empieza por los mensajes nuevos; el estado previo se carga desde la base de datos.
+     */
+    @Bean
+    public ConsumerFactory<String, byte[]> availabilityConsumerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, "auth-availability-" + UUID.randomUUID());
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        return new DefaultKafkaConsumerFactory<>(configProps, new StringDeserializer(), new ByteArrayDeserializer());
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> availabilityListenerContainerFactory(
+            ConsumerFactory<String, byte[]> availabilityConsumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(availabilityConsumerFactory);
+        return factory;
+    }
+
+    private double batchFillRatio(KafkaTemplate<String, byte[]> template) {
+        return template.metrics().entrySet().stream()
+                .filter(entry -> "producer-metrics".equals(entry.getKey().group())
+                    && "batch-size-avg".equals(entry.getKey().name()))
+                .map(entry -> entry.getValue().metricValue())
+                .filter(Number.class::isInstance)
+                .mapToDouble(value -> ((Number) value).doubleValue())
+                .filter(value -> !Double.isNaN(value))
+                .map(value -> value / batchSize)
+                .findFirst()
+                .orElse(0.0);
     }
 }
@@ -0,0 +1,110 @@
+package com.pablovass.authservice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Configuración del hashing de contraseñas.
+ * Usa un {@link DelegatingPasswordEncoder} ({@code {bcrypt}} / {@code {argon2id}}) cuyo coste se
+ * calibra al arrancar para acercarse a {@code auth.password-hashing.target-millis} en el hardware
+ * actual. Los hashes con algoritmo o coste anterior se re-hashean en segundo plano al hacer login.
+ */
+@Slf4j
+@Configuration
+public class PasswordEncoderConfig {
+
+    static final String BCRYPT = "bcrypt";
+    static final String ARGON2 = "argon2id";
+
+    private static final int MIN_BCRYPT_STRENGTH = 10;
+    private static final int MAX_BCRYPT_STRENGTH = 16;
+    private static final int MIN_ARGON2_ITERATIONS = 2;
+    private static final int MAX_ARGON2_ITERATIONS = 10;
+    private static final int ARGON2_SALT_LENGTH = 16;
+    private static final int ARGON2_HASH_LENGTH = 32;
+    private static final int ARGON2_PARALLELISM = 1;
+    private static final int SAMPLES = 2;
+    private static final String SAMPLE_PASSWORD = "Calibration-Password-123";
+
+    @Value("${auth.password-hashing.algorithm:bcrypt}")
+    private String algorithm;
+
+    @Value("${auth.password-hashing.calibrate:true}")
+    private boolean calibrate;
+
+    @Value("${auth.password-hashing.target-millis:250}")
+    private long targetMillis;
+
+    @Value("${auth.password-hashing.bcrypt-strength:10}")
+    private int bcryptStrength;
+
+    @Value("${auth.password-hashing.argon2-iterations:2}")
+    private int argon2Iterations;
+
+    @Value("${auth.password-hashing.argon2-memory-kib:19456}")
+    private int argon2MemoryKib;
+
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        int strength = calibrate && BCRYPT.equals(algorithm)
+                ? calibrate(BCRYPT, MIN_BCRYPT_STRENGTH, MAX_BCRYPT_STRENGTH, BCryptPasswordEncoder::new)
+                : bcryptStrength;
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+
+        int iterations = calibrate && ARGON2.equals(algorithm)
+                ? calibrate(ARGON2, MIN_ARGON2_ITERATIONS, MAX_ARGON2_ITERATIONS, this::argon2)
+                : argon2Iterations;
+
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(algorithm, Map.of(
+            BCRYPT, bcrypt,
+            ARGON2, argon2(iterations)
+        ));
+        // Hashes heredados sin prefijo {id} ($2a$...) se verifican con BCrypt y se marcan para upgrade
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        log.info("🔐 Password hashing: {} (bcrypt strength={}, argon2id iterations={}, memory={}KiB)",
+                algorithm, strength, iterations, argon2MemoryKib);
+        return encoder;
+    }
+
+    private Argon2PasswordEncoder argon2(int iterations) {
+        return new Argon2PasswordEncoder(ARGON2_SALT_LENGTH, ARGON2_HASH_LENGTH, ARGON2_PARALLELISM,
+                argon2MemoryKib, iterations);
+    }
+
+    /**
+     * Devuelve el mayor coste cuyo tiempo de hash medido no supera el objetivo (como mínimo {@code min}).
+     */
+    private int calibrate(String name, int min, int max, Function<Integer, PasswordEncoder> factory) {
+        int selected = min;
+        for (int cost = min; cost <= max; cost++) {
+            long elapsedMillis = measure(factory.apply(cost));
+            log.debug("Calibración {} coste={} -> {} ms", name, cost, elapsedMillis);
+            if (elapsedMillis > targetMillis) {
+                break;
+            }
+            selected = cost;
+        }
+        return selected;
+    }
+
+    private static long measure(PasswordEncoder encoder) {
+        encoder.encode(SAMPLE_PASSWORD); // warm-up
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            best = Math.min(best, (System.nanoTime() - start) / 1_000_000);
+        }
+        return best;
+    }
+}
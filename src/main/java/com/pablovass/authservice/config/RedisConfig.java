@@ -1,14 +1,23 @@
 package com.pablovass.authservice.config;
 
+import com.pablovass.authservice.service.UserSnapshotCache;
+import com.pablovass.authservice.service.revocation.TokenRevocationService;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.nio.charset.StandardCharsets;
+
 /**
- * Configuración de Redis para almacenamiento de refresh tokens.
+ * Configuración de Redis para almacenamiento de refresh tokens,
+ * invalidación de la near-cache de usuarios y réplica de revocaciones de tokens entre nodos.
  */
+@Slf4j
 @Configuration
 public class RedisConfig {
 
@@ -27,4 +36,22 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
+
+    @Bean
+    public RedisMessageListenerContainer redisListenerContainer(
+            RedisConnectionFactory connectionFactory,
+            UserSnapshotCache userSnapshotCache,
+            TokenRevocationService tokenRevocationService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+            (message, pattern) -> userSnapshotCache.handleMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+            new ChannelTopic(userSnapshotCache.invalidationChannel())
+        );
+        container.addMessageListener(
+            (message, pattern) -> tokenRevocationService.handleMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+            new ChannelTopic(tokenRevocationService.channel())
+        );
+        return container;
+    }
 }
@@ -0,0 +1,23 @@
+package com.pablovass.authservice.config;
+
+import com.pablovass.authservice.service.diagnostics.EndpointTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Interceptores de Spring MVC.
+ * {@link EndpointTracker} asocia cada hilo de petición a su endpoint para el diagnóstico de pinning.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final EndpointTracker endpointTracker;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(endpointTracker);
+    }
+}
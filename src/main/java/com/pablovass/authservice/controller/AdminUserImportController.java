@@ -0,0 +1,41 @@
+package com.pablovass.authservice.controller;
+
+import com.pablovass.authservice.controller.dto.ImportReport;
+import com.pablovass.authservice.service.importer.ImportRowReader;
+import com.pablovass.authservice.service.importer.UserImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * Importación masiva de usuarios migrados desde plataformas externas (permiso {@code users:import}).
+ * El cuerpo se lee directamente del stream de la petición, sin materializar el fichero.
+ */
+@RestController
+@RequestMapping("/api/admin/users")
+@PreAuthorize("hasAuthority('users:import')")
+@RequiredArgsConstructor
+public class AdminUserImportController {
+
+    private static final String TEXT_CSV = "text/csv";
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private final UserImportService userImportService;
+
+    @PostMapping(value = "/import", consumes = TEXT_CSV, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ImportReport> importCsv(HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(userImportService.importUsers(request.getInputStream(), ImportRowReader.Format.CSV));
+    }
+
+    @PostMapping(value = "/import", consumes = APPLICATION_NDJSON, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ImportReport> importNdjson(HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(userImportService.importUsers(request.getInputStream(), ImportRowReader.Format.NDJSON));
+    }
+}
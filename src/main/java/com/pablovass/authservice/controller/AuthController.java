@@ -1,23 +1,32 @@
 package com.pablovass.authservice.controller;
 
+import com.pablovass.authservice.controller.dto.AvailabilityResponse;
 import com.pablovass.authservice.controller.dto.LoginRequest;
 import com.pablovass.authservice.controller.dto.LoginResponse;
 import com.pablovass.authservice.controller.dto.RefreshRequest;
 import com.pablovass.authservice.controller.dto.RefreshResponse;
 import com.pablovass.authservice.controller.dto.RegisterRequest;
+import com.pablovass.authservice.controller.dto.SessionResponse;
 import com.pablovass.authservice.controller.dto.UserProfileResponse;
+import com.pablovass.authservice.domain.model.AuthenticatedUser;
 import com.pablovass.authservice.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -35,8 +44,8 @@ public class AuthController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest request) {
-        LoginResponse response = authService.login(request);
+    public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest request, HttpServletRequest httpRequest) {
+        LoginResponse response = authService.login(request, httpRequest.getRemoteAddr(), httpRequest.getHeader(HttpHeaders.USER_AGENT));
         return ResponseEntity.ok(response);
     }
 
@@ -46,9 +55,63 @@ public class AuthController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Cierra la sesión (dispositivo) del access token presentado.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@AuthenticationPrincipal AuthenticatedUser user) {
+        authService.logout(user);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Revoca todos los access tokens y sesiones del usuario (todos los dispositivos).
+     */
+    @PostMapping("/logout-all")
+    public ResponseEntity<Void> logoutAll(@AuthenticationPrincipal AuthenticatedUser user) {
+        authService.logoutAll(user);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Sesiones abiertas del usuario, la usada más recientemente primero.
+     */
+    @GetMapping("/sessions")
+    public ResponseEntity<List<SessionResponse>> listSessions(@AuthenticationPrincipal AuthenticatedUser user) {
+        return ResponseEntity.ok(authService.listSessions(user));
+    }
+
+    /**
+     * Cierra una sesión del usuario (por ejemplo, un dispositivo perdido).
+     */
+    @DeleteMapping("/sessions/{sessionId}")
+    public ResponseEntity<Void> revokeSession(
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @PathVariable String sessionId) {
+        return authService.revokeSession(user, sessionId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Disponibilidad de username y/o email para el formulario de alta, limitada por IP.
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<AvailabilityResponse> checkAvailability(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String email,
+            HttpServletRequest httpRequest) {
+        return ResponseEntity.ok(authService.checkAvailability(username, email, httpRequest.getRemoteAddr()));
+    }
+
+    /**
+     * Perfil del usuario autenticado. Con {@code fresh=true} se lee siempre de la base de datos.
+     */
     @GetMapping("/profile")
-    public ResponseEntity<UserProfileResponse> getProfile(@AuthenticationPrincipal Long userId) {
-        UserProfileResponse response = authService.getProfile(userId);
+    public ResponseEntity<UserProfileResponse> getProfile(
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @RequestParam(defaultValue = "false") boolean fresh) {
+        UserProfileResponse response = authService.getProfile(user, fresh);
         return ResponseEntity.ok(response);
     }
 }
@@ -0,0 +1,42 @@
+package com.pablovass.authservice.controller;
+
+import com.pablovass.authservice.service.token.JwtKeyRing;
+import com.pablovass.authservice.service.token.JwtSigningKey;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publica las claves públicas de firma (JWKS) para que el resto de microservicios
+ * verifiquen los access tokens localmente, sin llamar a este servicio.
+ */
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+
+    private final JwtKeyRing keyRing;
+
+    @Value("${jwt.jwks.max-age:300}")
+    private long maxAgeSeconds;
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, List<Map<String, Object>>>> jwks() {
+        List<JwtSigningKey> keys = keyRing.publishedKeys();
+        List<Map<String, Object>> jwks = keys.stream()
+                .map(JwtSigningKey::toPublicJwk)
+                .toList();
+        String etag = Integer.toHexString(keys.stream().map(JwtSigningKey::kid).toList().hashCode());
+
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePublic())
+                .eTag(etag)
+                .body(Map.of("keys", jwks));
+    }
+}
@@ -0,0 +1,45 @@
+package com.pablovass.authservice.controller;
+
+import com.pablovass.authservice.controller.dto.IntrospectRequest;
+import com.pablovass.authservice.controller.dto.IntrospectResponse;
+import com.pablovass.authservice.service.token.TokenIntrospectionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * Introspección de access tokens para el API gateway y los servicios internos (permiso {@code tokens:introspect}).
+ * Un lote JSON de hasta {@link IntrospectRequest#MAX_TOKENS} tokens, o un stream NDJSON sin límite
+ * que se lee y responde línea a línea.
+ */
+@RestController
+@RequestMapping("/api/auth")
+@PreAuthorize("hasAuthority('tokens:introspect')")
+@RequiredArgsConstructor
+public class TokenIntrospectionController {
+
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private final TokenIntrospectionService tokenIntrospectionService;
+
+    @PostMapping(value = "/introspect", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<IntrospectResponse> introspect(@Valid @RequestBody IntrospectRequest request) {
+        return ResponseEntity.ok(new IntrospectResponse(tokenIntrospectionService.introspect(request.tokens())));
+    }
+
+    @PostMapping(value = "/introspect", consumes = APPLICATION_NDJSON, produces = APPLICATION_NDJSON)
+    public void introspectNdjson(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(APPLICATION_NDJSON);
+        tokenIntrospectionService.introspect(request.getInputStream(), response.getOutputStream());
+    }
+}
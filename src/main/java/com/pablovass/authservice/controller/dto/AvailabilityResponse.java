@@ -0,0 +1,10 @@
+package com.pablovass.authservice.controller.dto;
+
+/**
+ * Response DTO para la consulta de disponibilidad de username/email.
+ * Cada campo es null si no se consultó.
+ */
+public record AvailabilityResponse(
+    Boolean usernameAvailable,
+    Boolean emailAvailable
+) {}
@@ -0,0 +1,22 @@
+package com.pablovass.authservice.controller.dto;
+
+import java.util.List;
+
+/**
+ * Response DTO de la importación masiva: totales y detalle de las filas no importadas.
+ * {@code rejected} se limita a las primeras {@code auth.import.max-rejected-details} filas;
+ * {@code rejectedRows} es el total.
+ */
+public record ImportReport(
+    long totalRows,
+    long imported,
+    long rejectedRows,
+    List<RejectedRow> rejected
+) {
+
+    public record RejectedRow(
+        long line,
+        String email,
+        String reason
+    ) {}
+}
@@ -0,0 +1,19 @@
+package com.pablovass.authservice.controller.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Request DTO de la introspección por lotes: los access tokens a verificar, en el orden en que
+ * se quieren las respuestas.
+ */
+public record IntrospectRequest(
+    @NotEmpty(message = "Debe indicar al menos un token")
+    @Size(max = IntrospectRequest.MAX_TOKENS, message = "Como máximo " + IntrospectRequest.MAX_TOKENS + " tokens por petición")
+    List<String> tokens
+) {
+
+    public static final int MAX_TOKENS = 1000;
+}
@@ -0,0 +1,10 @@
+package com.pablovass.authservice.controller.dto;
+
+import java.util.List;
+
+/**
+ * Response DTO de la introspección por lotes: un resultado por token, en el mismo orden que la petición.
+ */
+public record IntrospectResponse(
+    List<TokenIntrospection> results
+) {}
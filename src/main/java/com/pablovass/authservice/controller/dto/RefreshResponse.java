@@ -2,9 +2,11 @@ package com.pablovass.authservice.controller.dto;
 
 /**
  * Response DTO para renovación de Access Token.
+ * Incluye el nuevo refresh token: el presentado queda invalidado tras la rotación.
  * HU-AUTH-03: Refresh Token
  */
 public record RefreshResponse(
     String accessToken,
+    String refreshToken,
     Long expiresIn
 ) {}
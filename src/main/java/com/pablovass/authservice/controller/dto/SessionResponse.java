@@ -0,0 +1,17 @@
+package com.pablovass.authservice.controller.dto;
+
+import java.time.Instant;
+
+/**
+ * Response DTO de una sesión (dispositivo) del usuario.
+ * {@code current} marca la sesión del access token con el que se hace la consulta.
+ */
+public record SessionResponse(
+    String id,
+    Instant createdAt,
+    Instant lastUsedAt,
+    Instant expiresAt,
+    String ipAddress,
+    String userAgent,
+    boolean current
+) {}
@@ -0,0 +1,39 @@
+package com.pablovass.authservice.controller.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.pablovass.authservice.service.token.VerifiedToken;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Resultado de la introspección de un access token.
+ * {@code status} es {@code active}, {@code expired}, {@code revoked}, {@code bad_signature},
+ * {@code malformed} o {@code invalid}; los claims sólo se devuelven para tokens activos.
+ * {@code authorities} son los roles y permisos de la máscara del token, igual que en el filtro JWT.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TokenIntrospection(
+    boolean active,
+    String status,
+    Long userId,
+    String username,
+    String email,
+    List<String> authorities,
+    String tokenId,
+    String sessionId,
+    Instant issuedAt,
+    Instant expiresAt
+) {
+
+    public static final String ACTIVE = "active";
+
+    public static TokenIntrospection active(VerifiedToken token, List<String> authorities) {
+        return new TokenIntrospection(true, ACTIVE, token.userId(), token.username(), token.email(), authorities,
+            token.tokenId(), token.sessionId(), token.issuedAt(), token.expiresAt());
+    }
+
+    public static TokenIntrospection inactive(String status) {
+        return new TokenIntrospection(false, status, null, null, null, null, null, null, null, null);
+    }
+}
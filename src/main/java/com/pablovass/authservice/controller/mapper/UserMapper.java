@@ -9,7 +9,7 @@ import org.mapstruct.Mapping;
 public interface UserMapper {
 
     @Mapping(target = "id", ignore = true)
-    @Mapping(target = "roles", ignore = true)
+    @Mapping(target = "roleMask", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "password", ignore = true) // Password se setea manualmente tras hashear
     User toEntity(RegisterRequest request);
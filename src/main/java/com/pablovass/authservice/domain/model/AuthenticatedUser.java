@@ -0,0 +1,50 @@
+package com.pablovass.authservice.domain.model;
+
+import com.pablovass.authservice.service.token.VerifiedToken;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Principal que el filtro JWT deja en el SecurityContext.
+ * Con {@code jwt.self-contained-profile} activo, el token trae además email y fecha de alta,
+ * y el perfil se responde sin consultar la base de datos.
+ * {@code tokenId}, {@code sessionId} y {@code expiresAt} identifican el access token presentado y su sesión,
+ * para poder revocarlos.
+ */
+public record AuthenticatedUser(
+    Long userId,
+    String username,
+    int roleMask,
+    String email,
+    LocalDateTime createdAt,
+    String tokenId,
+    String sessionId,
+    Instant expiresAt
+) {
+
+    public static AuthenticatedUser from(VerifiedToken token) {
+        return new AuthenticatedUser(
+            token.userId(),
+            token.username(),
+            token.roleMask(),
+            token.email(),
+            token.createdAt(),
+            token.tokenId(),
+            token.sessionId(),
+            token.expiresAt()
+        );
+    }
+
+    public Set<Role> roles() {
+        return Role.fromMask(roleMask);
+    }
+
+    /**
+     * Indica si el token incluía los claims de perfil.
+     */
+    public boolean hasProfile() {
+        return email != null && createdAt != null;
+    }
+}
@@ -0,0 +1,23 @@
+package com.pablovass.authservice.domain.model;
+
+/**
+ * Permisos de grano fino que conceden los roles.
+ * Se exponen como authorities ({@code profile:read}, ...) para {@code @PreAuthorize}.
+ */
+public enum Permission {
+
+    PROFILE_READ("profile:read"),
+    USERS_READ("users:read"),
+    USERS_IMPORT("users:import"),
+    TOKENS_INTROSPECT("tokens:introspect");
+
+    private final String authority;
+
+    Permission(String authority) {
+        this.authority = authority;
+    }
+
+    public String authority() {
+        return authority;
+    }
+}
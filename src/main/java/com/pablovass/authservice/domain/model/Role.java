@@ -0,0 +1,87 @@
+package com.pablovass.authservice.domain.model;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Roles del sistema codificados como bits de una máscara.
+ * La máscara se guarda en {@code users.role_mask} y viaja firmada en el claim {@code rm} del
+ * access token, así que resolver roles y permisos no requiere joins ni consultas.
+ * El orden de los bits es parte del formato: añadir roles sólo al final.
+ */
+public enum Role {
+
+    USER(0, EnumSet.of(Permission.PROFILE_READ)),
+    ADMIN(1, EnumSet.of(Permission.PROFILE_READ, Permission.USERS_READ, Permission.USERS_IMPORT, Permission.TOKENS_INTROSPECT)),
+    SERVICE(2, EnumSet.of(Permission.TOKENS_INTROSPECT));
+
+    /**
+     * Máscara por defecto de los usuarios registrados.
+     */
+    public static final int DEFAULT_MASK = USER.bit();
+
+    private static final String PREFIX = "ROLE_";
+
+    private final int bit;
+    private final Set<Permission> permissions;
+
+    Role(int position, Set<Permission> permissions) {
+        this.bit = 1 << position;
+        this.permissions = Collections.unmodifiableSet(permissions);
+    }
+
+    public int bit() {
+        return bit;
+    }
+
+    public Set<Permission> permissions() {
+        return permissions;
+    }
+
+    /**
+     * Nombre de la authority de Spring Security ({@code ROLE_ADMIN}).
+     */
+    public String authority() {
+        return PREFIX + name();
+    }
+
+    public boolean isIn(int mask) {
+        return (mask & bit) != 0;
+    }
+
+    public static int mask(Set<Role> roles) {
+        int mask = 0;
+        for (Role role : roles) {
+            mask |= role.bit;
+        }
+        return mask;
+    }
+
+    public static Set<Role> fromMask(int mask) {
+        EnumSet<Role> roles = EnumSet.noneOf(Role.class);
+        for (Role role : values()) {
+            if (role.isIn(mask)) {
+                roles.add(role);
+            }
+        }
+        return roles;
+    }
+
+    /**
+     * Traduce el nombre de rol de los tokens anteriores al claim {@code rm} ({@code ROLE_ADMIN} o {@code ADMIN}).
+     * Un nombre desconocido o nulo se trata como {@link #USER}.
+     */
+    public static int maskOf(String authority) {
+        if (authority == null) {
+            return DEFAULT_MASK;
+        }
+        String name = authority.startsWith(PREFIX) ? authority.substring(PREFIX.length()) : authority;
+        for (Role role : values()) {
+            if (role.name().equals(name)) {
+                return role.bit;
+            }
+        }
+        return DEFAULT_MASK;
+    }
+}
@@ -0,0 +1,9 @@
+package com.pablovass.authservice.domain.model;
+
+/**
+ * Proyección con los identificadores únicos de un usuario (para precargar el filtro de disponibilidad).
+ */
+public record UserIdentifiers(
+    String username,
+    String email
+) {}
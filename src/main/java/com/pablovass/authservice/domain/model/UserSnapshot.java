@@ -0,0 +1,33 @@
+package com.pablovass.authservice.domain.model;
+
+import com.pablovass.authservice.domain.model.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Vista inmutable de los datos de identidad de un usuario.
+ * No incluye el hash de la contraseña y puede compartirse entre hilos desde la near-cache.
+ */
+public record UserSnapshot(
+    Long id,
+    String username,
+    String email,
+    int roleMask,
+    LocalDateTime createdAt
+) {
+
+    public static UserSnapshot from(User user) {
+        return new UserSnapshot(
+            user.getId(),
+            user.getUsername(),
+            user.getEmail(),
+            user.getRoleMask(),
+            user.getCreatedAt()
+        );
+    }
+
+    public Set<Role> roles() {
+        return Role.fromMask(roleMask);
+    }
+}
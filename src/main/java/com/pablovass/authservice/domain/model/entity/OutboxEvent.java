@@ -0,0 +1,59 @@
+package com.pablovass.authservice.domain.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento pendiente de publicar en Kafka (patrón transactional outbox).
+ * Se inserta en la misma transacción que el cambio que lo origina y el relay lo marca
+ * con {@code sentAt} una vez confirmado por el broker. Tras {@code outbox.relay.max-attempts} fallos
+ * se aparca con {@code parkedAt} y deja de reintentarse. Los pendientes se leen con el índice parcial
+ * {@code idx_outbox_events_pending} (migración V4).
+ */
+@Entity
+@Table(name = "outbox_events")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String topic;
+
+    @Column(name = "aggregate_id")
+    private String aggregateId;
+
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "schema_version")
+    private Integer schemaVersion;
+
+    @Column(nullable = false)
+    private byte[] payload;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "parked_at")
+    private LocalDateTime parkedAt;
+}
@@ -1,11 +1,11 @@
 package com.pablovass.authservice.domain.model.entity;
 
+import com.pablovass.authservice.domain.model.Role;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
-import java.util.Set;
 
 @Entity
 @Table(name = "users")
@@ -16,23 +16,31 @@ import java.util.Set;
 @Builder
 public class User {
 
+    /**
+     * Índices únicos sobre lower(email) y lower(username), creados por las migraciones de Flyway.
+     */
+    public static final String EMAIL_CONSTRAINT = "uk_users_email";
+    public static final String USERNAME_CONSTRAINT = "uk_users_username";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String email;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String username;
 
     @Column(nullable = false)
     private String password;
 
-    @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"))
-    @Column(name = "role")
-    private Set<String> roles;
+    /**
+     * Roles como máscara de bits de {@link Role}: se carga con la fila, sin join a otra tabla.
+     */
+    @Builder.Default
+    @Column(name = "role_mask", nullable = false, columnDefinition = "integer default 1")
+    private int roleMask = Role.DEFAULT_MASK;
 
     @CreationTimestamp
     @Column(updatable = false)
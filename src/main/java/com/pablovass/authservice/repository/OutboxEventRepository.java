@@ -0,0 +1,39 @@
+package com.pablovass.authservice.repository;
+
+import com.pablovass.authservice.domain.model.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Toma el lock consultivo del relay hasta el fin de la transacción. Sólo un nodo drena el outbox
+     * a la vez: si dos nodos enviaran rangos de ids distintos, los eventos de un mismo usuario se
+     * publicarían en paralelo y perderían su orden.
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:lockId)", nativeQuery = true)
+    boolean tryLockRelay(@Param("lockId") long lockId);
+
+    /**
+     * Bloquea el siguiente lote de eventos pendientes. {@code SKIP LOCKED} evita esperar a filas
+     * retenidas por otra transacción (p.ej. un relay anterior que aún no ha hecho commit).
+     * Los eventos aparcados (intentos agotados) no se seleccionan.
+     */
+    @Query(value = "SELECT * FROM outbox_events WHERE sent_at IS NULL AND parked_at IS NULL "
+                 + "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(@Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query("delete from OutboxEvent e where e.sentAt < :cutoff")
+    int deleteSentBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -1,14 +1,54 @@
 package com.pablovass.authservice.repository;
 
+import com.pablovass.authservice.domain.model.UserIdentifiers;
 import com.pablovass.authservice.domain.model.entity.User;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
+/**
+ * Las consultas son readOnly por defecto y, con réplicas configuradas, se sirven desde ellas;
+ * las escrituras heredadas de JpaRepository y {@link #updatePassword} declaran su propia transacción.
+ */
 @Repository
+@Transactional(readOnly = true)
 public interface UserRepository extends JpaRepository<User, Long> {
-    boolean existsByEmail(String email);
-    boolean existsByUsername(String username);
-    Optional<User> findByEmail(String email);
+
+    /**
+     * Comparaciones sobre lower(...) para usar los índices únicos uk_users_email / uk_users_username.
+     */
+    @Query("select count(u) > 0 from User u where lower(u.email) = lower(:email)")
+    boolean existsByEmailIgnoreCase(@Param("email") String email);
+
+    @Query("select count(u) > 0 from User u where lower(u.username) = lower(:username)")
+    boolean existsByUsernameIgnoreCase(@Param("username") String username);
+
+    /**
+     * Búsqueda del login: el índice uk_users_email incluye todas las columnas de la entidad.
+     */
+    @Query("select u from User u where lower(u.email) = lower(:email)")
+    Optional<User> findByEmailIgnoreCase(@Param("email") String email);
+
+    /**
+     * Recorre username/email de todos los usuarios en streaming (requiere transacción abierta).
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("select new com.pablovass.authservice.domain.model.UserIdentifiers(u.username, u.email) from User u")
+    Stream<UserIdentifiers> streamIdentifiers();
+
+    /**
+     * Reemplaza el hash solo si no cambió desde que se leyó (evita pisar un cambio concurrente).
+     */
+    @Modifying
+    @Transactional
+    @Query("update User u set u.password = :newPassword where u.id = :id and u.password = :oldPassword")
+    int updatePassword(@Param("id") Long id, @Param("oldPassword") String oldPassword, @Param("newPassword") String newPassword);
 }
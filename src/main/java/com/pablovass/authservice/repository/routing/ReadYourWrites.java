@@ -0,0 +1,82 @@
+package com.pablovass.authservice.repository.routing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Lecturas que deben ver las escrituras recientes aunque se sirvan desde una réplica.
+ * Un alta recién confirmada en el primario puede no haber llegado aún a la réplica: si la lectura
+ * no encuentra la fila, se repite contra el primario. Sin réplicas configuradas no hace nada extra.
+ * La lectura en el primario corre en una transacción nueva ({@code REQUIRES_NEW}) y por tanto con un
+ * EntityManager propio: Hibernate retiene la conexión física de la primera lectura hasta cerrar la
+ * sesión, así que repetirla en el mismo EntityManager volvería a la réplica. Por lo mismo
+ * {@code spring.jpa.open-in-view} debe estar desactivado.
+ * Expone los reintentos como {@code datasource.routing.primary-fallbacks}.
+ */
+@Component
+public class ReadYourWrites {
+
+    private final TransactionTemplate primaryReads;
+    private final Counter fallbacks;
+
+    @Autowired
+    public ReadYourWrites(
+            ObjectProvider<ReplicaRoutingDataSource> routingDataSource,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry
+    ) {
+        this(routingDataSource.getIfAvailable() != null ? transactionManager : null, meterRegistry);
+    }
+
+    /**
+     * @param transactionManager gestor con el que se abren las lecturas en el primario; {@code null} si no hay réplicas
+     */
+    public ReadYourWrites(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        if (transactionManager != null) {
+            this.primaryReads = new TransactionTemplate(transactionManager);
+            this.primaryReads.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            this.primaryReads.setReadOnly(true);
+        } else {
+            this.primaryReads = null;
+        }
+        this.fallbacks = meterRegistry.counter("datasource.routing.primary-fallbacks");
+    }
+
+    /**
+     * Sin réplicas: las lecturas se ejecutan tal cual.
+     */
+    public static ReadYourWrites withoutReplicas(MeterRegistry meterRegistry) {
+        return new ReadYourWrites((PlatformTransactionManager) null, meterRegistry);
+    }
+
+    /**
+     * Ejecuta la lectura (réplica si la transacción es readOnly) y, si no hay resultado, la repite en el primario.
+     */
+    public <T> Optional<T> findOrPrimary(Supplier<Optional<T>> query) {
+        Optional<T> result = query.get();
+        if (result.isPresent() || primaryReads == null) {
+            return result;
+        }
+        fallbacks.increment();
+        return onPrimary(query);
+    }
+
+    /**
+     * Ejecuta la lectura siempre contra el primario.
+     */
+    public <T> T onPrimary(Supplier<T> query) {
+        if (primaryReads == null) {
+            return query.get();
+        }
+        return ReplicaRoutingDataSource.onPrimary(() -> primaryReads.execute(status -> query.get()));
+    }
+}
@@ -0,0 +1,173 @@
+package com.pablovass.authservice.repository.routing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * DataSource de sólo lectura que reparte las conexiones entre las réplicas sanas (round-robin).
+ * Se registra como {@code readOnlyDataSource} del {@code LazyConnectionDataSourceProxy}, así que
+ * sólo recibe las transacciones {@code readOnly}; todo lo demás va directo al primario.
+ * Una réplica sale de la rotación si no responde o si su retraso de replicación supera
+ * {@code maxLagMillis}. Sin réplicas sanas, o con {@link #onPrimary(Supplier)}, se usa el primario.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final String PRIMARY = "primary";
+    private static final int HEALTH_CHECK_TIMEOUT_SECONDS = 2;
+
+    // 0 si la réplica ya aplicó todo lo recibido; NULL si el servidor no está en recovery (es un primario)
+    private static final String LAG_QUERY =
+        "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 END";
+
+    private static final ThreadLocal<Boolean> PRIMARY_FORCED = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter replicaConnections;
+    private final Counter primaryConnections;
+    private final Counter failovers;
+
+    // Empieza vacía: las réplicas entran en rotación tras superar el primer health check
+    private volatile List<String> healthy = List.of();
+
+    public ReplicaRoutingDataSource(
+            DataSource primary,
+            Map<String, DataSource> replicas,
+            long maxLagMillis,
+            MeterRegistry meterRegistry
+    ) {
+        this.primary = primary;
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.maxLagMillis = maxLagMillis;
+        this.replicaConnections = meterRegistry.counter("datasource.routing.connections", "target", "replica");
+        this.primaryConnections = meterRegistry.counter("datasource.routing.connections", "target", PRIMARY);
+        this.failovers = meterRegistry.counter("datasource.routing.failovers");
+        Gauge.builder("datasource.replicas.healthy", this, routing -> routing.healthy.size())
+                .description("Réplicas en rotación para lecturas")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ejecuta {@code action} leyendo siempre del primario, aunque la transacción sea readOnly.
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        Boolean previous = PRIMARY_FORCED.get();
+        PRIMARY_FORCED.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_FORCED.remove();
+            } else {
+                PRIMARY_FORCED.set(previous);
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    /**
+     * Comprueba conectividad y retraso de cada réplica y actualiza la rotación.
+     */
+    @Scheduled(fixedDelayString = "${auth.datasource.replicas.health-check-interval:5000}")
+    public void checkHealth() {
+        List<String> available = new ArrayList<>(replicas.size());
+        replicas.forEach((name, dataSource) -> {
+            if (isHealthy(name, dataSource)) {
+                available.add(name);
+            }
+        });
+        if (!available.equals(healthy)) {
+            log.info("🗄️ Réplicas en rotación: {} de {}", available, replicas.keySet());
+        }
+        this.healthy = List.copyOf(available);
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource replica : replicas.values()) {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private Connection route(ConnectionSupplier supplier) throws SQLException {
+        List<String> candidates = healthy;
+        if (candidates.isEmpty() || Boolean.TRUE.equals(PRIMARY_FORCED.get())) {
+            primaryConnections.increment();
+            return supplier.get(primary);
+        }
+        String name = candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+        try {
+            Connection connection = supplier.get(replicas.get(name));
+            replicaConnections.increment();
+            return connection;
+        } catch (SQLException e) {
+            // La réplica cayó entre dos health checks: sacarla de la rotación y servir desde el primario
+            markUnhealthy(name, e);
+            failovers.increment();
+            primaryConnections.increment();
+            return supplier.get(primary);
+        }
+    }
+
+    private boolean isHealthy(String name, DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(HEALTH_CHECK_TIMEOUT_SECONDS);
+            try (ResultSet result = statement.executeQuery(LAG_QUERY)) {
+                double lag = result.next() ? result.getDouble(1) : 0;
+                if (lag > maxLagMillis) {
+                    log.warn("⚠️ Réplica {} con {} ms de retraso (máximo {} ms)", name, (long) lag, maxLagMillis);
+                    return false;
+                }
+                return true;
+            }
+        } catch (SQLException e) {
+            log.warn("⚠️ Réplica {} no disponible: {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    private synchronized void markUnhealthy(String name, SQLException cause) {
+        List<String> remaining = new ArrayList<>(healthy);
+        if (remaining.remove(name)) {
+            log.warn("⚠️ Réplica {} retirada de la rotación: {}", name, cause.getMessage());
+            this.healthy = List.copyOf(remaining);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSupplier {
+        Connection get(DataSource dataSource) throws SQLException;
+    }
+}
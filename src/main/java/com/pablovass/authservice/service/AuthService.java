@@ -1,15 +1,25 @@
 package com.pablovass.authservice.service;
 
+import com.pablovass.authservice.controller.dto.AvailabilityResponse;
 import com.pablovass.authservice.controller.dto.LoginRequest;
 import com.pablovass.authservice.controller.dto.LoginResponse;
 import com.pablovass.authservice.controller.dto.RefreshRequest;
 import com.pablovass.authservice.controller.dto.RefreshResponse;
 import com.pablovass.authservice.controller.dto.RegisterRequest;
+import com.pablovass.authservice.controller.dto.SessionResponse;
 import com.pablovass.authservice.controller.dto.UserProfileResponse;
+import com.pablovass.authservice.domain.model.AuthenticatedUser;
+
+import java.util.List;
 
 public interface AuthService {
     void register(RegisterRequest request);
-    LoginResponse login(LoginRequest request);
+    LoginResponse login(LoginRequest request, String clientIp, String userAgent);
     RefreshResponse refresh(RefreshRequest request);
-    UserProfileResponse getProfile(Long userId);
+    UserProfileResponse getProfile(AuthenticatedUser user, boolean fresh);
+    void logout(AuthenticatedUser user);
+    void logoutAll(AuthenticatedUser user);
+    List<SessionResponse> listSessions(AuthenticatedUser user);
+    boolean revokeSession(AuthenticatedUser user, String sessionId);
+    AvailabilityResponse checkAvailability(String username, String email, String clientIp);
 }
@@ -1,72 +1,155 @@
 package com.pablovass.authservice.service;
 
+import com.pablovass.authservice.domain.model.Role;
+import com.pablovass.authservice.domain.model.UserSnapshot;
+import com.pablovass.authservice.service.revocation.TokenRevocationService;
+import com.pablovass.authservice.service.token.JwtKeyRing;
+import com.pablovass.authservice.service.token.JwtSigningKey;
+import com.pablovass.authservice.service.token.VerifiedToken;
+import com.pablovass.authservice.service.token.VerifiedTokenCache;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
-import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 /**
  * Servicio para generación y validación de tokens JWT.
  * Maneja access tokens con claims personalizados.
+ * Firma con la clave activa del {@link JwtKeyRing} (ES256/EdDSA, header {@code kid}) y el parser,
+ * construido una sola vez al arrancar, localiza la clave de verificación por {@code kid}.
+ * Los roles viajan como máscara de bits en el claim {@code rm} (ver {@link Role}).
+ * Con {@code jwt.self-contained-profile} el token incluye también email y fecha de alta.
+ * Cada token lleva un {@code jti} único, la sesión que lo emitió en {@code sid} y, si el usuario cerró
+ * todas sus sesiones, su época en {@code ep}
+ * (ver {@link TokenRevocationService}).
  */
 @Service
+@RequiredArgsConstructor
 public class JwtService {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final JwtKeyRing keyRing;
+    private final TokenRevocationService tokenRevocationService;
 
     @Value("${jwt.access-token-expiration}")
     private Long accessTokenExpiration;
 
+    @Value("${jwt.self-contained-profile:false}")
+    private boolean selfContainedProfile;
+
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        this.parser = Jwts.parser()
+                .keyLocator(keyRing)
+                .build();
+    }
+
     /**
      * Genera un access token JWT para el usuario.
      *
      * @param userId ID del usuario
      * @param username Nombre de usuario
-     * @param role Rol del usuario
+     * @param role Rol del usuario ({@code ROLE_USER}, {@code ROLE_ADMIN}...)
      * @return Token JWT firmado
      */
     public String generateAccessToken(Long userId, String username, String role) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("username", username);
-        claims.put("role", role);
-        
+        claims.put("rm", Role.maskOf(role));
+        return sign(userId, claims);
+    }
+
+    /**
+     * Genera un access token JWT a partir del snapshot del usuario,
+     * embebiendo los claims de perfil si {@code jwt.self-contained-profile} está activo.
+     *
+     * @param user Snapshot del usuario
+     * @return Token JWT firmado
+     */
+    public String generateAccessToken(UserSnapshot user) {
+        return generateAccessToken(user, null);
+    }
+
+    /**
+     * Genera un access token JWT para una sesión (claim {@code sid}), que se revoca junto con ella.
+     *
+     * @param user Snapshot del usuario
+     * @param sessionId Sesión de refresh token que emite el token
+     * @return Token JWT firmado
+     */
+    public String generateAccessToken(UserSnapshot user, String sessionId) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("username", user.username());
+        claims.put("rm", user.roleMask());
+        if (selfContainedProfile && user.createdAt() != null) {
+            claims.put("email", user.email());
+            claims.put("createdAt", user.createdAt().toString());
+        }
+        if (sessionId != null) {
+            claims.put("sid", sessionId);
+        }
+        return sign(user.id(), claims);
+    }
+
+    private String sign(Long userId, Map<String, Object> claims) {
+        JwtSigningKey signingKey = keyRing.signingKey();
+        long epoch = tokenRevocationService.currentEpoch(userId);
+        if (epoch > 0) {
+            claims.put("ep", epoch);
+        }
         return Jwts.builder()
+                .header().keyId(signingKey.kid()).and()
+                .id(UUID.randomUUID().toString())
                 .subject(userId.toString())
                 .claims(claims)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + accessTokenExpiration))
-                .signWith(getSigningKey())
+                .signWith(signingKey.privateKey(), signingKey.signatureAlgorithm())
                 .compact();
     }
 
+    /**
+     * Parsea y verifica el token una sola vez, reutilizando el resultado cacheado
+     * mientras el token no haya expirado.
+     *
+     * @param token Token JWT firmado
+     * @return Token verificado
+     * @throws io.jsonwebtoken.JwtException si la firma es inválida, está mal formado o expiró
+     */
+    public VerifiedToken verify(String token) {
+        return verifiedTokenCache.get(token, this::parseAndVerify);
+    }
+
     /**
      * Extrae el userId (subject) del token.
      */
     public Long extractUserId(String token) {
-        return Long.parseLong(extractClaim(token, Claims::getSubject));
+        return verify(token).userId();
     }
 
     /**
      * Extrae el username del token.
      */
     public String extractUsername(String token) {
-        return extractClaim(token, claims -> claims.get("username", String.class));
+        return verify(token).username();
     }
 
     /**
      * Extrae la fecha de expiración del token.
      */
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return Date.from(verify(token).expiresAt());
     }
 
     /**
@@ -81,33 +164,25 @@ public class JwtService {
      * Extrae todos los claims del token.
      */
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
+    }
+
+    private VerifiedToken parseAndVerify(String token) {
+        return VerifiedToken.from(extractAllClaims(token));
     }
 
     /**
      * Verifica si el token ha expirado.
      */
     public Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return verify(token).isExpired();
     }
 
     /**
      * Valida el token verificando que no haya expirado y que el userId coincida.
      */
     public Boolean validateToken(String token, Long userId) {
-        final Long tokenUserId = extractUserId(token);
-        return (tokenUserId.equals(userId) && !isTokenExpired(token));
-    }
-
-    /**
-     * Obtiene la clave de firma para JWT.
-     */
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        final VerifiedToken verified = verify(token);
+        return (verified.userId().equals(userId) && !verified.isExpired());
     }
 }
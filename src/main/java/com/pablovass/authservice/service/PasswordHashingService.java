@@ -0,0 +1,177 @@
+package com.pablovass.authservice.service;
+
+import com.pablovass.authservice.service.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Ejecuta el hashing de contraseñas (CPU-bound) en un pool dedicado del tamaño de los cores
+ * con cola acotada, para que una ráfaga de logins sobre virtual threads no acapare los
+ * carrier threads que atienden peticiones baratas (/refresh, /profile).
+ * Si la cola está llena se rechaza de inmediato con {@link ServiceOverloadedException} (503).
+ */
+@Slf4j
+@Service
+public class PasswordHashingService {
+
+    private static final String EXECUTOR_NAME = "password.hashing";
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final ExecutorService callbackExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final long retryAfterSeconds;
+    private final Timer matchesTimer;
+    private final Timer encodeTimer;
+    private final Timer queueWaitTimer;
+    private final Counter rejectedCounter;
+    private final Counter rehashCounter;
+    private final Counter rehashSkippedCounter;
+
+    public PasswordHashingService(
+            PasswordEncoder passwordEncoder,
+            MeterRegistry meterRegistry,
+            @Value("${auth.password-hashing.pool-size:0}") int poolSize,
+            @Value("${auth.password-hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${auth.password-hashing.retry-after-seconds:1}") long retryAfterSeconds
+    ) {
+        this.passwordEncoder = passwordEncoder;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            new HashingThreadFactory(),
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        // Gauges executor.queued / executor.active / executor.pool.size con name=password.hashing
+        new ExecutorServiceMetrics(executor, EXECUTOR_NAME, Tags.empty()).bindTo(meterRegistry);
+        this.matchesTimer = Timer.builder("auth.password.hash.duration")
+                .tag("operation", "matches")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.encodeTimer = Timer.builder("auth.password.hash.duration")
+                .tag("operation", "encode")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("auth.password.hash.queue.wait")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("auth.password.hash.rejected")
+                .register(meterRegistry);
+        this.rehashCounter = Counter.builder("auth.password.rehash")
+                .tag("result", "submitted")
+                .register(meterRegistry);
+        this.rehashSkippedCounter = Counter.builder("auth.password.rehash")
+                .tag("result", "skipped")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Verifica una contraseña contra su hash en el pool de hashing.
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return execute(matchesTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Calcula el hash de una contraseña en el pool de hashing.
+     */
+    public String encode(String rawPassword) {
+        return execute(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Si el hash usa un algoritmo o coste desactualizado, lo recalcula en segundo plano y entrega
+     * el nuevo hash a {@code onRehashed} (en un virtual thread, fuera del pool de hashing).
+     * Con el pool saturado se omite: se reintentará en el próximo login.
+     */
+    public void rehashInBackground(String rawPassword, String encodedPassword, Consumer<String> onRehashed) {
+        if (!passwordEncoder.upgradeEncoding(encodedPassword)) {
+            return;
+        }
+        try {
+            CompletableFuture
+                .supplyAsync(() -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword)), executor)
+                .thenAcceptAsync(onRehashed, callbackExecutor)
+                .exceptionally(ex -> {
+                    log.warn("No se pudo actualizar el hash de la contraseña: {}", ex.getMessage());
+                    return null;
+                });
+            rehashCounter.increment();
+        } catch (RejectedExecutionException e) {
+            rehashSkippedCounter.increment();
+        }
+    }
+
+    private <T> T execute(Timer timer, Callable<T> task) {
+        long enqueuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWaitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                return timer.recordCallable(task);
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new ServiceOverloadedException("Servicio saturado, reintente en unos segundos", retryAfterSeconds);
+        }
+
+        try {
+            // El hilo llamante (virtual) se bloquea sin ocupar un carrier mientras espera
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Hashing de contraseña interrumpido", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Error en el hashing de contraseña", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+        callbackExecutor.shutdown();
+    }
+
+    private static final class HashingThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "password-hash-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
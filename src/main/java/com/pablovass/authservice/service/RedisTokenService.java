@@ -1,91 +1,275 @@
 package com.pablovass.authservice.service;
 
+import com.pablovass.authservice.service.token.RefreshRotation;
+import com.pablovass.authservice.service.token.RefreshSession;
+import com.pablovass.authservice.service.token.RefreshToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
-import java.util.UUID;
-import java.util.concurrent.TimeUnit;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Servicio para gestión de refresh tokens en Redis.
- * Almacena tokens con TTL de 7 días.
+ * Servicio para gestión de sesiones y refresh tokens en Redis.
+ * Cada usuario tiene un hash {@code sessions:{userId}} con una entrada por sesión (dispositivo):
+ * hash del secreto vigente y del anterior, fechas, IP y agente. El hash vive lo que la sesión más
+ * reciente ({@code jwt.refresh-token-expiration}) y cada alta descarta las sesiones expiradas y, por
+ * encima de {@code auth.sessions.max-per-user}, las usadas hace más tiempo, así la memoria por usuario
+ * está acotada. Las llaves del nombre son hash tags: todas las claves de un usuario caen en el mismo
+ * slot de Redis Cluster.
+ * Cada operación cuesta un único round trip: scripts Lua (EVALSHA) precargados al arrancar o un
+ * comando suelto (HGETALL, DEL).
+ * Cada refresh rota el secreto de la sesión; los duplicados dentro de la ventana de gracia reciben la
+ * misma respuesta y la reutilización de un secreto ya rotado fuera de esa ventana revoca la sesión.
+ * Si la respuesta de una rotación no llega a emitirse, {@link #abandonRotation(String)} devuelve la
+ * sesión al secreto presentado para que el reintento del cliente no se tome por un robo.
  */
+@Slf4j
 @Service
 public class RedisTokenService {
 
+    private static final String SESSIONS_KEY_PREFIX = "sessions:";
+    private static final String ROTATED_KEY_PREFIX = "refresh_rotated:";
+    private static final String PENDING = "PENDING";
+    private static final String RESPONSE_SEPARATOR = "|";
+    private static final long PENDING_POLL_MILLIS = 20;
+
+    private static final RedisScript<Long> ISSUE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/redis/issue_refresh_token.lua"), Long.class);
+    private static final RedisScript<Long> ABANDON_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/redis/abandon_refresh_rotation.lua"), Long.class);
+    private static final RedisScript<Long> REVOKE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/redis/revoke_refresh_token.lua"), Long.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ROTATE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/redis/rotate_refresh_token.lua"), List.class);
+
     private final RedisTemplate<String, String> redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
 
     @Value("${jwt.refresh-token-expiration}")
     private Long refreshTokenExpiration;
 
-    public RedisTokenService(RedisTemplate<String, String> redisTemplate) {
+    @Value("${jwt.refresh-token-grace-window:5000}")
+    private Long refreshTokenGraceWindow;
+
+    @Value("${auth.sessions.max-per-user:10}")
+    private int maxSessionsPerUser;
+
+    public RedisTokenService(RedisTemplate<String, String> redisTemplate, MeterRegistry meterRegistry) {
         this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Precarga los scripts (SCRIPT LOAD) para que la primera llamada ya use EVALSHA.
+     */
+    @PostConstruct
+    void preloadScripts() {
+        try {
+            redisTemplate.execute((RedisCallback<Void>) connection -> {
+                for (RedisScript<?> script : List.of(ISSUE_SCRIPT, ABANDON_SCRIPT, REVOKE_SCRIPT, ROTATE_SCRIPT)) {
+                    load(connection, script);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            // Si Redis no está disponible al arrancar, Spring hará EVAL la primera vez
+            log.warn("No se pudieron precargar los scripts Lua de refresh tokens: {}", e.getMessage());
+        }
     }
 
     /**
-     * Genera y almacena un refresh token en Redis.
-     * Almacena bidireccional: userId -> token y token -> userId
+     * Abre la sesión de un refresh token generado con {@link RefreshToken#newSession(Long)}; el id de
+     * sesión se conoce antes de escribir en Redis, así el access token puede firmarse en paralelo.
+     * Si el usuario ya tiene el máximo de sesiones se descarta la usada hace más tiempo.
      *
-     * @param userId ID del usuario
-     * @return Refresh token generado (UUID)
+     * @param token Refresh token de la nueva sesión
+     * @param ipAddress IP del cliente
+     * @param userAgent User-Agent del cliente (puede ser null)
      */
-    public String generateAndStoreRefreshToken(Long userId) {
-        String refreshToken = UUID.randomUUID().toString();
-        String userKey = "refresh_token:" + userId;
-        String tokenKey = "token_user:" + refreshToken;
-        
-        // Almacenar bidireccional en Redis con TTL
-        redisTemplate.opsForValue().set(
-            userKey,
-            refreshToken,
-            refreshTokenExpiration,
-            TimeUnit.MILLISECONDS
-        );
-        
-        // Mapeo inverso para recuperar userId desde el token
-        redisTemplate.opsForValue().set(
-            tokenKey,
-            userId.toString(),
-            refreshTokenExpiration,
-            TimeUnit.MILLISECONDS
-        );
-        
-        return refreshToken;
+    public void openSession(RefreshToken token, String ipAddress, String userAgent) {
+        Long userId = token.userId();
+        Instant now = Instant.now();
+        String entry = RefreshSession.newEntry(token.secretHash(), now, now.plusMillis(refreshTokenExpiration), ipAddress, userAgent);
+
+        Long evicted = timer("issue").record(() -> redisTemplate.execute(
+            ISSUE_SCRIPT,
+            List.of(sessionsKey(userId)),
+            token.sessionId(), entry, String.valueOf(now.toEpochMilli()), refreshTokenExpiration.toString(),
+            String.valueOf(maxSessionsPerUser)
+        ));
+        if (evicted != null && evicted > 0) {
+            log.debug("Sesiones descartadas para userId {}: {}", userId, evicted);
+        }
     }
 
     /**
-     * Obtiene el userId asociado a un refresh token.
+     * Rota un refresh token en un solo round trip: invalida el secreto presentado y emite uno nuevo
+     * para la misma sesión. Si el secreto se acaba de rotar y la respuesta aún se está calculando
+     * (en otro nodo), espera como mucho la ventana de gracia a que se complete.
      *
-     * @param refreshToken Token a consultar
-     * @return userId si el token existe, null si no
+     * @param refreshToken Token presentado por el cliente
+     * @return Resultado de la rotación
      */
-    public Long getUserIdFromRefreshToken(String refreshToken) {
-        String tokenKey = "token_user:" + refreshToken;
-        String userIdStr = redisTemplate.opsForValue().get(tokenKey);
-        return userIdStr != null ? Long.parseLong(userIdStr) : null;
+    public RefreshRotation rotateRefreshToken(String refreshToken) {
+        RefreshToken presented = RefreshToken.parse(refreshToken);
+        if (presented == null) {
+            return RefreshRotation.invalid();
+        }
+
+        RefreshToken next = presented.rotate();
+        Instant now = Instant.now();
+        List<?> result = timer("rotate").record(() -> redisTemplate.execute(
+            ROTATE_SCRIPT,
+            List.of(sessionsKey(presented.userId()), rotatedKey(presented)),
+            presented.sessionId(), presented.secretHash(), next.secretHash(),
+            String.valueOf(now.toEpochMilli()), String.valueOf(now.plusMillis(refreshTokenExpiration).toEpochMilli()),
+            refreshTokenExpiration.toString(), refreshTokenGraceWindow.toString()
+        ));
+
+        String status = result != null && !result.isEmpty() ? (String) result.get(0) : "INVALID";
+        return switch (status) {
+            case "ROTATED" -> RefreshRotation.rotated(presented.userId(), presented.sessionId(), next.value());
+            case "REUSED" -> RefreshRotation.reused(presented.userId(), presented.sessionId());
+            case "GRACE" -> awaitRotatedResponse(presented, (String) result.get(1));
+            default -> RefreshRotation.invalid();
+        };
     }
 
     /**
-     * Valida un refresh token verificando que exista en Redis y coincida.
+     * Guarda la respuesta emitida para un token rotado, que se servirá a los duplicados
+     * que lleguen dentro de la ventana de gracia.
+     */
+    public void completeRotation(String rotatedToken, String newRefreshToken, String accessToken) {
+        RefreshToken rotated = RefreshToken.parse(rotatedToken);
+        if (rotated == null) {
+            return;
+        }
+        redisTemplate.opsForValue().setIfPresent(
+            rotatedKey(rotated),
+            rotated.secretHash() + RESPONSE_SEPARATOR + newRefreshToken + RESPONSE_SEPARATOR + accessToken,
+            Duration.ofMillis(refreshTokenGraceWindow)
+        );
+    }
+
+    /**
+     * Deshace la rotación de un token cuya respuesta no se pudo emitir (fallo al buscar el usuario,
+     * al firmar o al guardar la respuesta). Sólo tiene efecto mientras la respuesta siga pendiente,
+     * así que es seguro llamarlo aunque no se sepa si la rotación llegó a ejecutarse.
      *
-     * @param userId ID del usuario
-     * @param refreshToken Token a validar
-     * @return true si el token es válido
+     * @param refreshToken Token presentado por el cliente
+     */
+    public void abandonRotation(String refreshToken) {
+        RefreshToken presented = RefreshToken.parse(refreshToken);
+        if (presented == null) {
+            return;
+        }
+        try {
+            Long restored = timer("abandon").record(() -> redisTemplate.execute(
+                ABANDON_SCRIPT,
+                List.of(sessionsKey(presented.userId()), rotatedKey(presented)),
+                presented.sessionId(), presented.secretHash()
+            ));
+            if (restored != null && restored > 0) {
+                log.warn("⚠️ Rotación abandonada para userId {}: se restaura el refresh token anterior", presented.userId());
+            }
+        } catch (Exception e) {
+            log.error("❌ No se pudo deshacer la rotación para userId {}: {}", presented.userId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Sesiones vigentes del usuario, la usada más recientemente primero.
      */
-    public Boolean validateRefreshToken(Long userId, String refreshToken) {
-        String key = "refresh_token:" + userId;
-        String storedToken = redisTemplate.opsForValue().get(key);
-        return refreshToken.equals(storedToken);
+    public List<RefreshSession> listSessions(Long userId) {
+        Map<Object, Object> entries = timer("list").record(() -> redisTemplate.opsForHash().entries(sessionsKey(userId)));
+        Instant now = Instant.now();
+        return entries.entrySet().stream()
+                .map(entry -> RefreshSession.parse(entry.getKey().toString(), entry.getValue().toString()))
+                .filter(Objects::nonNull)
+                .filter(session -> !session.isExpired(now))
+                .sorted(Comparator.comparing(RefreshSession::lastUsedAt).reversed())
+                .toList();
     }
 
     /**
-     * Elimina un refresh token de Redis (logout).
+     * Revoca una sesión del usuario (logout de un dispositivo).
      *
-     * @param userId ID del usuario
+     * @return true si la sesión existía
+     */
+    public boolean revokeSession(Long userId, String sessionId) {
+        Long removed = timer("revoke").record(() -> redisTemplate.execute(
+            REVOKE_SCRIPT,
+            List.of(sessionsKey(userId), rotatedKey(userId, sessionId)),
+            sessionId
+        ));
+        return removed != null && removed > 0;
+    }
+
+    /**
+     * Revoca todas las sesiones del usuario. Las respuestas de rotación cacheadas caducan con la ventana de gracia.
      */
-    public void revokeRefreshToken(Long userId) {
-        String key = "refresh_token:" + userId;
-        redisTemplate.delete(key);
+    public void revokeAllSessions(Long userId) {
+        timer("revoke-all").record(() -> redisTemplate.delete(sessionsKey(userId)));
+    }
+
+    private RefreshRotation awaitRotatedResponse(RefreshToken presented, String cached) {
+        long deadline = System.currentTimeMillis() + refreshTokenGraceWindow;
+        String prefix = presented.secretHash() + RESPONSE_SEPARATOR;
+        while (PENDING.equals(cached) && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(PENDING_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return RefreshRotation.invalid();
+            }
+            String stored = redisTemplate.opsForValue().get(rotatedKey(presented));
+            cached = stored != null && stored.startsWith(prefix) ? stored.substring(prefix.length()) : null;
+        }
+        if (cached == null || PENDING.equals(cached)) {
+            return RefreshRotation.invalid();
+        }
+        String[] parts = cached.split("\\" + RESPONSE_SEPARATOR, 2);
+        return RefreshRotation.grace(parts[0], parts[1]);
+    }
+
+    private Timer timer(String operation) {
+        return timers.computeIfAbsent(operation, op -> Timer.builder("auth.refresh_token.redis")
+                .tag("operation", op)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    private static String sessionsKey(Long userId) {
+        return SESSIONS_KEY_PREFIX + "{" + userId + "}";
+    }
+
+    private static String rotatedKey(RefreshToken token) {
+        return rotatedKey(token.userId(), token.sessionId());
+    }
+
+    private static String rotatedKey(Long userId, String sessionId) {
+        return ROTATED_KEY_PREFIX + "{" + userId + "}:" + sessionId;
+    }
+
+    private static void load(RedisConnection connection, RedisScript<?> script) {
+        connection.scriptingCommands().scriptLoad(script.getScriptAsString().getBytes(StandardCharsets.UTF_8));
     }
 }
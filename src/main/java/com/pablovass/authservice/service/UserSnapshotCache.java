@@ -0,0 +1,137 @@
+package com.pablovass.authservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.pablovass.authservice.domain.model.UserSnapshot;
+import com.pablovass.authservice.repository.UserRepository;
+import com.pablovass.authservice.repository.routing.ReadYourWrites;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Near-cache en proceso de {@link UserSnapshot} delante de {@link UserRepository#findById}.
+ * Acotada por tamaño y TTL; las modificaciones de un usuario se propagan al resto de nodos
+ * publicando sus ids (separados por comas) en el canal de Redis {@code auth.user-cache.invalidation-channel}.
+ * Los usuarios inexistentes no se cachean.
+ * Expone hits/misses como métricas {@code cache.gets} con {@code cache=user.snapshot}.
+ */
+@Slf4j
+@Service
+public class UserSnapshotCache {
+
+    private static final String CACHE_NAME = "user.snapshot";
+
+    private final UserRepository userRepository;
+    private final ReadYourWrites readYourWrites;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final String invalidationChannel;
+    private final Cache<Long, UserSnapshot> cache;
+
+    public UserSnapshotCache(
+            UserRepository userRepository,
+            ReadYourWrites readYourWrites,
+            RedisTemplate<String, String> redisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${auth.user-cache.ttl:300000}") long ttlMillis,
+            @Value("${auth.user-cache.max-size:10000}") long maxSize,
+            @Value("${auth.user-cache.invalidation-channel:auth:user-invalidations}") String invalidationChannel
+    ) {
+        this.userRepository = userRepository;
+        this.readYourWrites = readYourWrites;
+        this.redisTemplate = redisTemplate;
+        this.invalidationChannel = invalidationChannel;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Devuelve el snapshot del usuario desde la caché o lo carga de la base de datos
+     * (réplica, o primario si la réplica aún no tiene el usuario).
+     */
+    public Optional<UserSnapshot> get(Long userId) {
+        return Optional.ofNullable(cache.get(userId,
+            id -> readYourWrites.findOrPrimary(() -> userRepository.findById(id)).map(UserSnapshot::from).orElse(null)));
+    }
+
+    /**
+     * Lee el usuario del primario ignorando la caché, actualiza la entrada local y pide al resto
+     * de nodos que descarten la suya.
+     */
+    public Optional<UserSnapshot> reload(Long userId) {
+        Optional<UserSnapshot> snapshot = readYourWrites.onPrimary(() -> userRepository.findById(userId)).map(UserSnapshot::from);
+        snapshot.ifPresentOrElse(user -> cache.put(userId, user), () -> cache.invalidate(userId));
+        publish(List.of(userId));
+        return snapshot;
+    }
+
+    /**
+     * Descarta el snapshot en este nodo y notifica al resto.
+     * Si Redis no está disponible, los demás nodos lo descartan al vencer el TTL.
+     */
+    public void invalidate(Long userId) {
+        invalidate(List.of(userId));
+    }
+
+    /**
+     * Descarta los snapshots de varios usuarios con una sola notificación (importación por lotes).
+     */
+    public void invalidate(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        userIds.forEach(this::evictLocal);
+        publish(userIds);
+    }
+
+    /**
+     * Procesa una invalidación recibida por el canal: ids separados por comas.
+     */
+    public void handleMessage(String body) {
+        for (String id : body.split(",")) {
+            try {
+                evictLocal(Long.valueOf(id.trim()));
+            } catch (NumberFormatException e) {
+                log.warn("⚠️ Invalidación de usuario ignorada, id no válido: {}", id);
+            }
+        }
+    }
+
+    /**
+     * Descarta el snapshot sólo en este nodo (invalidación recibida desde otro nodo).
+     */
+    public void evictLocal(Long userId) {
+        cache.invalidate(userId);
+    }
+
+    private void publish(Collection<Long> userIds) {
+        String body = userIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+        try {
+            redisTemplate.convertAndSend(invalidationChannel, body);
+        } catch (Exception e) {
+            log.error("❌ Error al publicar la invalidación de los usuarios {}: {}", body, e.getMessage());
+        }
+    }
+
+    public String invalidationChannel() {
+        return invalidationChannel;
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
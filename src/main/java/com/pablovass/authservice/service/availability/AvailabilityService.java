@@ -0,0 +1,168 @@
+package com.pablovass.authservice.service.availability;
+
+import com.pablovass.authservice.domain.model.UserIdentifiers;
+import com.pablovass.authservice.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Disponibilidad de username/email servida desde filtros de Bloom en memoria.
+ * Un "no presente" del filtro es definitivo y se responde sin consultar la base de datos;
+ * sólo un "quizá presente" se confirma con {@code exists}. Los filtros se precargan desde
+ * {@code users} al arrancar, se reconstruyen periódicamente y se actualizan con cada alta,
+ * local o recibida de otros nodos por el topic de eventos.
+ * Métricas: {@code auth.availability.checks{field, source}} y {@code auth.availability.false_positives{field}}.
+ */
+@Slf4j
+@Service
+public class AvailabilityService {
+
+    private static final String USERNAME = "username";
+    private static final String EMAIL = "email";
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final MeterRegistry meterRegistry;
+    private final long expectedUsers;
+    private final double falsePositiveRate;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    private volatile Filters current;
+    private volatile Filters building;
+    private volatile boolean ready;
+
+    public AvailabilityService(
+            UserRepository userRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${auth.availability.expected-users:1000000}") long expectedUsers,
+            @Value("${auth.availability.false-positive-rate:0.01}") double falsePositiveRate
+    ) {
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.meterRegistry = meterRegistry;
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+        this.current = Filters.create(expectedUsers, falsePositiveRate);
+
+        Gauge.builder("auth.availability.bloom.expected_fpp", this, service -> service.current.usernames().expectedFalsePositiveRate())
+                .tag("field", USERNAME)
+                .register(meterRegistry);
+        Gauge.builder("auth.availability.bloom.expected_fpp", this, service -> service.current.emails().expectedFalsePositiveRate())
+                .tag("field", EMAIL)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    /**
+     * Reconstruye los filtros desde la tabla {@code users} (también descarta altas que ya no existen).
+     * Las altas registradas mientras tanto se insertan en ambos filtros.
+     */
+    @Scheduled(initialDelayString = "${auth.availability.rebuild-interval:3600000}",
+               fixedDelayString = "${auth.availability.rebuild-interval:3600000}")
+    public void rebuild() {
+        try {
+            long users = userRepository.count();
+            Filters next = Filters.create(Math.max(expectedUsers, users * 2), falsePositiveRate);
+            building = next;
+            AtomicLong loaded = new AtomicLong();
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<UserIdentifiers> identifiers = userRepository.streamIdentifiers()) {
+                    identifiers.forEach(user -> {
+                        next.put(user.username(), user.email());
+                        loaded.incrementAndGet();
+                    });
+                }
+            });
+            current = next;
+            ready = true;
+            log.info("✅ Filtro de disponibilidad cargado con {} usuarios", loaded.get());
+        } catch (Exception e) {
+            log.error("❌ Error al cargar el filtro de disponibilidad: {}", e.getMessage());
+        } finally {
+            building = null;
+        }
+    }
+
+    public boolean isUsernameAvailable(String username) {
+        return check(USERNAME, current.usernames(), username, userRepository::existsByUsernameIgnoreCase);
+    }
+
+    public boolean isEmailAvailable(String email) {
+        return check(EMAIL, current.emails(), email, userRepository::existsByEmailIgnoreCase);
+    }
+
+    /**
+     * Añade un alta a los filtros (local o recibida de otro nodo). Es idempotente.
+     */
+    public void recordRegistered(String username, String email) {
+        current.put(username, email);
+        Filters inProgress = building;
+        if (inProgress != null) {
+            inProgress.put(username, email);
+        }
+    }
+
+    private boolean check(String field, BloomFilter filter, String value, Predicate<String> exists) {
+        if (ready && !filter.mightContain(normalize(value))) {
+            counter("auth.availability.checks", field, "filter").increment();
+            return true;
+        }
+        counter("auth.availability.checks", field, "database").increment();
+        boolean present = exists.test(value);
+        if (ready && !present) {
+            counter("auth.availability.false_positives", field, null).increment();
+        }
+        return !present;
+    }
+
+    private Counter counter(String name, String field, String source) {
+        return counters.computeIfAbsent(name + ":" + field + ":" + source, key -> {
+            Counter.Builder builder = Counter.builder(name).tag("field", field);
+            if (source != null) {
+                builder.tag("source", source);
+            }
+            return builder.register(meterRegistry);
+        });
+    }
+
+    static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record Filters(BloomFilter usernames, BloomFilter emails) {
+
+        static Filters create(long expectedInsertions, double falsePositiveRate) {
+            return new Filters(
+                BloomFilter.create(expectedInsertions, falsePositiveRate),
+                BloomFilter.create(expectedInsertions, falsePositiveRate)
+            );
+        }
+
+        void put(String username, String email) {
+            usernames.put(normalize(username));
+            emails.put(normalize(email));
+        }
+    }
+}
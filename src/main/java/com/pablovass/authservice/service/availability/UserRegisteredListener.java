@@ -0,0 +1,54 @@
+package com.pablovass.authservice.service.availability;
+
+import com.pablovass.authservice.service.event.UserEventCodec;
+import com.pablovass.authservice.service.event.UserRegisteredEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Mantiene el filtro de disponibilidad de cada nodo al día con las altas de los demás.
+ * Cada instancia consume el topic con su propio grupo, así todas reciben todos los eventos.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserRegisteredListener {
+
+    private final AvailabilityService availabilityService;
+    private final UserEventCodec userEventCodec;
+
+    @KafkaListener(
+        topics = "${kafka.topic.user-events}",
+        containerFactory = "availabilityListenerContainerFactory",
+        autoStartup = "${auth.availability.listener.enabled:true}"
+    )
+    public void onUserEvent(ConsumerRecord<String, byte[]> record) {
+        String eventType = header(record, UserEventCodec.HEADER_EVENT_TYPE);
+        if (!UserRegisteredEvent.class.getSimpleName().equals(eventType)) {
+            return;
+        }
+        try {
+            String schemaVersion = header(record, UserEventCodec.HEADER_SCHEMA_VERSION);
+            UserRegisteredEvent event = (UserRegisteredEvent) userEventCodec.decode(
+                eventType,
+                header(record, UserEventCodec.HEADER_CONTENT_TYPE),
+                schemaVersion != null ? Integer.valueOf(schemaVersion) : null,
+                record.value()
+            );
+            availabilityService.recordRegistered(event.username(), event.email());
+        } catch (Exception e) {
+            log.warn("⚠️ Evento de alta ignorado en el filtro de disponibilidad: {}", e.getMessage());
+        }
+    }
+
+    private static String header(ConsumerRecord<String, byte[]> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+}
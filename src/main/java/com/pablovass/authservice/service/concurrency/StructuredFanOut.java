@@ -0,0 +1,219 @@
+package com.pablovass.authservice.service.concurrency;
+
+import com.pablovass.authservice.service.diagnostics.EndpointTracker;
+import com.pablovass.authservice.service.exception.ServiceOverloadedException;
+import com.pablovass.authservice.service.observability.AuthObservations;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta en paralelo las fases independientes de una operación (Redis, base de datos, firma)
+ * sobre {@link StructuredTaskScope} con un hilo virtual por fase.
+ * Todas las fases comparten el plazo {@code auth.fan-out.deadline}; la primera que falla cancela
+ * (interrumpe) a las demás y su excepción se propaga tal cual al llamante. Si vence el plazo se
+ * cancelan todas y se responde 503. Una fase también puede cancelar a las demás con {@link Scope#cancel()}
+ * cuando su resultado las hace innecesarias; los resultados se leen después de cerrar el ámbito.
+ * Cada fase sigue generando su {@code auth.phase} como hija de la operación en curso, y
+ * {@code auth.fan-out{operation, path}} registra la duración del camino crítico ({@code critical})
+ * frente a la suma de las fases ({@code sequential}): la diferencia es lo que ahorra el paralelismo.
+ * Los hilos de las fases heredan el endpoint del hilo que las lanza en {@link EndpointTracker}.
+ */
+@Component
+public class StructuredFanOut {
+
+    private static final String METRIC = "auth.fan-out";
+
+    private final AuthObservations observations;
+    private final ObservationRegistry observationRegistry;
+    private final MeterRegistry meterRegistry;
+    private final EndpointTracker endpointTracker;
+    private final Duration deadline;
+    private final long retryAfterSeconds;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public StructuredFanOut(
+            AuthObservations observations,
+            ObservationRegistry observationRegistry,
+            MeterRegistry meterRegistry,
+            EndpointTracker endpointTracker,
+            @Value("${auth.fan-out.deadline:2000}") long deadlineMillis,
+            @Value("${auth.fan-out.retry-after-seconds:1}") long retryAfterSeconds
+    ) {
+        this.observations = observations;
+        this.observationRegistry = observationRegistry;
+        this.meterRegistry = meterRegistry;
+        this.endpointTracker = endpointTracker;
+        this.deadline = Duration.ofMillis(deadlineMillis);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Abre un ámbito para las fases de {@code operation}; debe cerrarse (try-with-resources) en el mismo hilo.
+     */
+    public Scope open(String operation) {
+        return new Scope(operation);
+    }
+
+    private Timer timer(String operation, String path) {
+        return timers.computeIfAbsent(operation + ":" + path, key -> Timer.builder(METRIC)
+                .tag("operation", operation)
+                .tag("path", path)
+                .register(meterRegistry));
+    }
+
+    public final class Scope implements AutoCloseable {
+
+        private final String operation;
+        private final StructuredTaskScope.ShutdownOnFailure scope = new StructuredTaskScope.ShutdownOnFailure();
+        private final Observation parent = observationRegistry.getCurrentObservation();
+        private final Instant deadlineAt = Instant.now().plus(deadline);
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong phaseNanos = new AtomicLong();
+        // Fase que llamó a cancel(): es la única que conserva su resultado tras el shutdown
+        private volatile Thread cancelledBy;
+
+        private Scope(String operation) {
+            this.operation = operation;
+        }
+
+        /**
+         * Lanza una fase en su propio hilo virtual. El resultado sólo puede leerse después de {@link #join()},
+         * o de {@link #close()} si alguna fase llamó a {@link #cancel()}.
+         */
+        public <T> Supplier<T> fork(String phase, Callable<T> action) {
+            return fork(phase, action, false);
+        }
+
+        /**
+         * Como {@link #fork(String, Callable)}, pero un fallo de la fase no cancela a las demás:
+         * se relanza al leer su resultado. Para fases cuyo fallo no debe interrumpir una escritura
+         * que otra fase tenga en curso.
+         */
+        public <T> Supplier<T> forkIsolated(String phase, Callable<T> action) {
+            return fork(phase, action, true);
+        }
+
+        private <T> Supplier<T> fork(String phase, Callable<T> action, boolean isolated) {
+            // Resultado propio: el de la Subtask no queda disponible si la fase termina tras un cancel()
+            CompletableFuture<T> result = new CompletableFuture<>();
+            String endpoint = endpointTracker.endpointOf(Thread.currentThread().threadId());
+            scope.fork(() -> {
+                endpointTracker.inherit(endpoint);
+                long start = System.nanoTime();
+                try (Observation.Scope ignored = parent != null ? parent.openScope() : null) {
+                    T value = observations.phase(operation, phase, () -> call(action));
+                    if (available()) {
+                        result.complete(value);
+                    }
+                    return value;
+                } catch (RuntimeException e) {
+                    if (!isolated) {
+                        throw e;
+                    }
+                    if (available()) {
+                        result.completeExceptionally(e);
+                    }
+                    return null;
+                } finally {
+                    phaseNanos.addAndGet(System.nanoTime() - start);
+                }
+            });
+            return () -> {
+                if (!result.isDone()) {
+                    throw new IllegalStateException("La fase " + phase + " de " + operation + " no terminó");
+                }
+                try {
+                    return result.join();
+                } catch (CompletionException e) {
+                    throw (RuntimeException) e.getCause();
+                }
+            };
+        }
+
+        /**
+         * Lanza una fase sin resultado en su propio hilo virtual.
+         */
+        public void fork(String phase, Runnable action) {
+            fork(phase, () -> {
+                action.run();
+                return null;
+            });
+        }
+
+        /**
+         * Interrumpe las fases que sigan en curso. Puede llamarse desde una fase.
+         */
+        public void cancel() {
+            cancelledBy = Thread.currentThread();
+            scope.shutdown();
+        }
+
+        /**
+         * Como en las Subtask, una fase que termina después de un shutdown no publica su resultado.
+         */
+        private boolean available() {
+            return !scope.isShutdown() || cancelledBy == Thread.currentThread();
+        }
+
+        /**
+         * Espera a todas las fases hasta el plazo compartido y propaga el primer fallo.
+         */
+        public void join() {
+            try {
+                scope.joinUntil(deadlineAt);
+            } catch (TimeoutException e) {
+                scope.shutdown();
+                throw new ServiceOverloadedException("Tiempo de respuesta agotado, reintente en unos segundos", retryAfterSeconds);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                scope.shutdown();
+                throw new IllegalStateException("Interrumpido esperando las fases de " + operation, e);
+            }
+            scope.throwIfFailed(StructuredFanOut::unwrap);
+            timer(operation, "critical").record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            timer(operation, "sequential").record(phaseNanos.get(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void close() {
+            scope.close();
+        }
+    }
+
+    private static <T> T call(Callable<T> action) {
+        try {
+            return action.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable failure) {
+        if (failure instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (failure instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(failure);
+    }
+}
@@ -0,0 +1,62 @@
+package com.pablovass.authservice.service.diagnostics;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.jspecify.annotations.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+
+/**
+ * Recuerda qué endpoint atendía cada hilo para atribuir los eventos de JFR, que llegan
+ * de forma asíncrona (con el stream ya vaciado, la petición puede haber terminado).
+ * Con virtual threads cada petición tiene su propio hilo, así que el id no se reutiliza;
+ * las entradas caducan solas pasado {@link #RETENTION}.
+ */
+@Component
+public class EndpointTracker implements HandlerInterceptor {
+
+    static final String BACKGROUND = "background";
+
+    private static final Duration RETENTION = Duration.ofMinutes(1);
+    private static final long MAX_TRACKED_THREADS = 50_000;
+
+    private final Cache<Long, String> endpointsByThread = Caffeine.newBuilder()
+            .expireAfterWrite(RETENTION)
+            .maximumSize(MAX_TRACKED_THREADS)
+            .build();
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull Object handler) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        track(Thread.currentThread().threadId(),
+            request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI()));
+        return true;
+    }
+
+    void track(long threadId, String endpoint) {
+        endpointsByThread.put(threadId, endpoint);
+    }
+
+    /**
+     * Atribuye el hilo actual al endpoint de quien lo lanzó, para las fases que una petición
+     * reparte en otros hilos. Un endpoint {@code background} no se registra.
+     */
+    public void inherit(String endpoint) {
+        if (!BACKGROUND.equals(endpoint)) {
+            track(Thread.currentThread().threadId(), endpoint);
+        }
+    }
+
+    /**
+     * Endpoint que atendía el hilo, o {@code background} si no era un hilo de petición.
+     */
+    public String endpointOf(long threadId) {
+        String endpoint = endpointsByThread.getIfPresent(threadId);
+        return endpoint != null ? endpoint : BACKGROUND;
+    }
+}
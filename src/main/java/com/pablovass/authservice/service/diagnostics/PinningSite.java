@@ -0,0 +1,15 @@
+package com.pablovass.authservice.service.diagnostics;
+
+import java.util.List;
+
+/**
+ * Pinning acumulado de un endpoint en un punto de llamada, con una pila de muestra.
+ */
+public record PinningSite(
+    String endpoint,
+    String site,
+    long count,
+    long totalMillis,
+    long maxMillis,
+    List<String> sampleStack
+) {}
@@ -0,0 +1,86 @@
+package com.pablovass.authservice.service.diagnostics;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Agregado de eventos de pinning por endpoint y punto de llamada (primer frame de la aplicación).
+ * Guarda una pila de muestra por agregado para localizar la llamada bloqueante.
+ */
+final class PinningStats {
+
+    private static final int MAX_SAMPLE_FRAMES = 12;
+    private static final List<String> JDK_PACKAGES = List.of("java.", "javax.", "jdk.", "sun.", "com.sun.");
+
+    private final Map<Key, Aggregate> aggregates = new ConcurrentHashMap<>();
+    private final String applicationPackage;
+
+    PinningStats(String applicationPackage) {
+        this.applicationPackage = applicationPackage;
+    }
+
+    /**
+     * Registra un pinning con la pila del hilo virtual (frames {@code clase.método}, de arriba abajo).
+     *
+     * @return el punto de llamada al que se atribuye
+     */
+    String record(String endpoint, List<String> frames, long durationNanos) {
+        String site = callSite(frames);
+        Aggregate aggregate = aggregates.computeIfAbsent(new Key(endpoint, site),
+            key -> new Aggregate(List.copyOf(frames.subList(0, Math.min(frames.size(), MAX_SAMPLE_FRAMES)))));
+        aggregate.count.incrementAndGet();
+        aggregate.totalNanos.addAndGet(durationNanos);
+        aggregate.maxNanos.accumulate(durationNanos);
+        return site;
+    }
+
+    /**
+     * Agregados ordenados por tiempo total pinneado, de mayor a menor.
+     */
+    List<PinningSite> snapshot() {
+        return aggregates.entrySet().stream()
+                .map(entry -> new PinningSite(
+                    entry.getKey().endpoint(),
+                    entry.getKey().site(),
+                    entry.getValue().count.get(),
+                    entry.getValue().totalNanos.get() / 1_000_000,
+                    entry.getValue().maxNanos.get() / 1_000_000,
+                    entry.getValue().sampleStack))
+                .sorted(Comparator.comparingLong(PinningSite::totalMillis).reversed())
+                .toList();
+    }
+
+    /**
+     * Primer frame del código de la aplicación; si no hay, el primero que no sea del JDK
+     * (la librería que bloquea: Hikari, Lettuce, Kafka...).
+     */
+    String callSite(List<String> frames) {
+        String library = null;
+        for (String frame : frames) {
+            if (frame.startsWith(applicationPackage)) {
+                return frame;
+            }
+            if (library == null && JDK_PACKAGES.stream().noneMatch(frame::startsWith)) {
+                library = frame;
+            }
+        }
+        return library != null ? library : (frames.isEmpty() ? "unknown" : frames.getFirst());
+    }
+
+    private record Key(String endpoint, String site) {}
+
+    private static final class Aggregate {
+        private final List<String> sampleStack;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private Aggregate(List<String> sampleStack) {
+            this.sampleStack = sampleStack;
+        }
+    }
+}
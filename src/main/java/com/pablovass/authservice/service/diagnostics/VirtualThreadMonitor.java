@@ -0,0 +1,192 @@
+package com.pablovass.authservice.service.diagnostics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Instrumentación de virtual threads.
+ * <ul>
+ *   <li>Pinning: stream de JFR {@code jdk.VirtualThreadPinned} (por encima de {@code pinned-threshold}),
+ *       atribuido al endpoint que atendía el hilo y al primer frame de la aplicación o de la librería
+ *       que bloqueó (Hikari, Lettuce, Kafka, BCrypt...).</li>
+ *   <li>Carriers: muestreo periódico de los carrier threads del scheduler para medir cuántos están
+ *       ocupados y cuántas veces estuvieron todos ocupados a la vez (saturación).</li>
+ *   <li>Conteo de virtual threads con {@code jdk.VirtualThreadStart}/{@code End} (opcional, un evento por hilo).</li>
+ * </ul>
+ * Todo se publica como métricas {@code virtual.threads.*} y en {@code /actuator/virtualthreads}.
+ */
+@Slf4j
+@Component
+public class VirtualThreadMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String START_EVENT = "jdk.VirtualThreadStart";
+    private static final String END_EVENT = "jdk.VirtualThreadEnd";
+    private static final String SUBMIT_FAILED_EVENT = "jdk.VirtualThreadSubmitFailed";
+    private static final String CARRIER_THREAD_CLASS = "jdk.internal.misc.CarrierThread";
+    private static final String APPLICATION_PACKAGE = "com.pablovass.authservice";
+
+    private final MeterRegistry meterRegistry;
+    private final EndpointTracker endpointTracker;
+    private final PinningStats pinningStats = new PinningStats(APPLICATION_PACKAGE);
+    private final int parallelism = Integer.getInteger("jdk.virtualThreadScheduler.parallelism",
+            Runtime.getRuntime().availableProcessors());
+
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong ended = new AtomicLong();
+    private final Counter submitFailed;
+    private final AtomicInteger busyCarriers = new AtomicInteger();
+    private final AtomicLong samples = new AtomicLong();
+    private final Counter saturated;
+
+    @Value("${auth.diagnostics.virtual-threads.enabled:true}")
+    private boolean enabled;
+
+    @Value("${auth.diagnostics.virtual-threads.pinned-threshold:20}")
+    private long pinnedThresholdMillis;
+
+    @Value("${auth.diagnostics.virtual-threads.lifecycle-events:true}")
+    private boolean lifecycleEvents;
+
+    private RecordingStream stream;
+
+    public VirtualThreadMonitor(MeterRegistry meterRegistry, EndpointTracker endpointTracker) {
+        this.meterRegistry = meterRegistry;
+        this.endpointTracker = endpointTracker;
+        this.submitFailed = meterRegistry.counter("virtual.threads.submit.failed");
+        this.saturated = Counter.builder("virtual.threads.carriers.saturated")
+                .description("Muestras con todos los carrier threads ocupados")
+                .register(meterRegistry);
+        Gauge.builder("virtual.threads.live", this, monitor -> monitor.started.get() - monitor.ended.get())
+                .register(meterRegistry);
+        Gauge.builder("virtual.threads.carriers.busy", busyCarriers, AtomicInteger::get)
+                .register(meterRegistry);
+        Gauge.builder("virtual.threads.carriers.parallelism", this, monitor -> monitor.parallelism)
+                .register(meterRegistry);
+        Gauge.builder("virtual.threads.carriers.utilization", this, VirtualThreadMonitor::utilization)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            RecordingStream recording = new RecordingStream();
+            recording.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(pinnedThresholdMillis)).withStackTrace();
+            recording.enable(SUBMIT_FAILED_EVENT);
+            recording.onEvent(PINNED_EVENT, this::onPinned);
+            recording.onEvent(SUBMIT_FAILED_EVENT, event -> submitFailed.increment());
+            if (lifecycleEvents) {
+                recording.enable(START_EVENT).withoutStackTrace();
+                recording.enable(END_EVENT).withoutStackTrace();
+                recording.onEvent(START_EVENT, event -> started.incrementAndGet());
+                recording.onEvent(END_EVENT, event -> ended.incrementAndGet());
+            }
+            recording.startAsync();
+            this.stream = recording;
+            log.info("🧵 Monitor de virtual threads activo (pinning > {} ms, {} carriers)", pinnedThresholdMillis, parallelism);
+        } catch (Exception e) {
+            log.warn("⚠️ JFR no disponible, sin monitor de pinning: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    /**
+     * Muestrea los carrier threads: ocupado es el que no está esperando trabajo en el ForkJoinPool.
+     */
+    @Scheduled(fixedDelayString = "${auth.diagnostics.virtual-threads.carrier-sample-interval:1000}")
+    public void sampleCarriers() {
+        if (!enabled) {
+            return;
+        }
+        int busy = 0;
+        for (Map.Entry<Thread, StackTraceElement[]> entry : Thread.getAllStackTraces().entrySet()) {
+            if (CARRIER_THREAD_CLASS.equals(entry.getKey().getClass().getName()) && !isWaitingForWork(entry.getValue())) {
+                busy++;
+            }
+        }
+        busyCarriers.set(busy);
+        samples.incrementAndGet();
+        if (busy >= parallelism) {
+            saturated.increment();
+        }
+    }
+
+    public VirtualThreadReport report() {
+        return new VirtualThreadReport(
+            new VirtualThreadReport.Carriers(parallelism, busyCarriers.get(), utilization(),
+                (long) saturated.count(), samples.get()),
+            new VirtualThreadReport.VirtualThreads(started.get(), ended.get(), started.get() - ended.get(),
+                (long) submitFailed.count()),
+            pinningStats.snapshot()
+        );
+    }
+
+    private void onPinned(RecordedEvent event) {
+        RecordedThread thread = event.getThread();
+        String endpoint = thread != null ? endpointTracker.endpointOf(thread.getJavaThreadId()) : EndpointTracker.BACKGROUND;
+        List<String> frames = frames(event.getStackTrace());
+        long durationNanos = event.getDuration().toNanos();
+        String site = pinningStats.record(endpoint, frames, durationNanos);
+
+        Timer.builder("virtual.threads.pinned")
+                .description("Tiempo con un virtual thread fijado a su carrier")
+                .tag("endpoint", endpoint)
+                .tag("site", site)
+                .register(meterRegistry)
+                .record(Duration.ofNanos(durationNanos));
+        log.debug("📌 Pinning de {} ms en {} ({})", durationNanos / 1_000_000, site, endpoint);
+    }
+
+    private double utilization() {
+        return parallelism > 0 ? (double) busyCarriers.get() / parallelism : 0;
+    }
+
+    private static List<String> frames(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return List.of();
+        }
+        List<String> frames = new ArrayList<>(stackTrace.getFrames().size());
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            frames.add(frame.getMethod().getType().getName() + "." + frame.getMethod().getName());
+        }
+        return frames;
+    }
+
+    private static boolean isWaitingForWork(StackTraceElement[] stack) {
+        for (StackTraceElement element : stack) {
+            if ("java.util.concurrent.ForkJoinPool".equals(element.getClassName()) && "awaitWork".equals(element.getMethodName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
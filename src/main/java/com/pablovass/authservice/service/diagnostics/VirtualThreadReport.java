@@ -0,0 +1,34 @@
+package com.pablovass.authservice.service.diagnostics;
+
+import java.util.List;
+
+/**
+ * Estado de los virtual threads para el endpoint de diagnóstico {@code /actuator/virtualthreads}.
+ */
+public record VirtualThreadReport(
+    Carriers carriers,
+    VirtualThreads virtualThreads,
+    List<PinningSite> pinning
+) {
+
+    /**
+     * Última muestra de los carrier threads del scheduler de virtual threads.
+     */
+    public record Carriers(
+        int parallelism,
+        int busy,
+        double utilization,
+        long saturatedSamples,
+        long samples
+    ) {}
+
+    /**
+     * Contadores de virtual threads desde el arranque (requiere los eventos de inicio/fin de JFR).
+     */
+    public record VirtualThreads(
+        long started,
+        long ended,
+        long live,
+        long submitFailed
+    ) {}
+}
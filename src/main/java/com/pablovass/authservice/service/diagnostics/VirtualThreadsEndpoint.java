@@ -0,0 +1,22 @@
+package com.pablovass.authservice.service.diagnostics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code GET /actuator/virtualthreads}: carriers, conteo de virtual threads y pinning por endpoint.
+ */
+@Component
+@Endpoint(id = "virtualthreads")
+@RequiredArgsConstructor
+public class VirtualThreadsEndpoint {
+
+    private final VirtualThreadMonitor monitor;
+
+    @ReadOperation
+    public VirtualThreadReport virtualThreads() {
+        return monitor.report();
+    }
+}
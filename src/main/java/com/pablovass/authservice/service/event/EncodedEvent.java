@@ -0,0 +1,12 @@
+package com.pablovass.authservice.service.event;
+
+/**
+ * Evento ya serializado junto con los metadatos que viajan como headers de Kafka.
+ * {@code schemaVersion} sólo se informa en el formato binario.
+ */
+public record EncodedEvent(
+    String eventType,
+    String contentType,
+    Integer schemaVersion,
+    byte[] payload
+) {}
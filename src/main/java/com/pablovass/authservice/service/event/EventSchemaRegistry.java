@@ -0,0 +1,67 @@
+package com.pablovass.authservice.service.event;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.avro.Schema;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registro local de esquemas Avro de los eventos de usuario.
+ * Se carga una vez desde un fichero del classpath con, por tipo de evento, la versión
+ * actual y todas las versiones publicadas, así no hace falta un schema registry externo.
+ * Las versiones antiguas se conservan para poder leer mensajes ya publicados.
+ */
+@Component
+public class EventSchemaRegistry {
+
+    private final Map<String, Integer> currentVersions = new HashMap<>();
+    private final Map<String, Map<Integer, Schema>> schemas = new HashMap<>();
+
+    public EventSchemaRegistry(
+            @Value("${kafka.events.schema-registry:schemas/user-events-registry.json}") String location
+    ) {
+        try (InputStream in = new ClassPathResource(location).getInputStream()) {
+            JsonNode root = new ObjectMapper().readTree(in);
+            root.properties().forEach(type -> {
+                Map<Integer, Schema> versions = new HashMap<>();
+                type.getValue().get("versions").properties().forEach(version ->
+                    versions.put(Integer.valueOf(version.getKey()), new Schema.Parser().parse(version.getValue().toString())));
+                int current = type.getValue().get("current").asInt();
+                if (!versions.containsKey(current)) {
+                    throw new IllegalStateException("Versión actual " + current + " sin esquema para " + type.getKey());
+                }
+                currentVersions.put(type.getKey(), current);
+                schemas.put(type.getKey(), Map.copyOf(versions));
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el registro de esquemas " + location, e);
+        }
+    }
+
+    /**
+     * Versión con la que se escriben los eventos nuevos de este tipo.
+     */
+    public int currentVersion(String eventType) {
+        Integer version = currentVersions.get(eventType);
+        if (version == null) {
+            throw new IllegalArgumentException("Tipo de evento sin esquema registrado: " + eventType);
+        }
+        return version;
+    }
+
+    public Schema schema(String eventType, int version) {
+        Schema schema = schemas.getOrDefault(eventType, Map.of()).get(version);
+        if (schema == null) {
+            throw new IllegalArgumentException("Esquema no registrado: " + eventType + " v" + version);
+        }
+        return schema;
+    }
+}
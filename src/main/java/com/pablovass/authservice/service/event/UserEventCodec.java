@@ -0,0 +1,154 @@
+package com.pablovass.authservice.service.event;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.support.serializer.JacksonJsonSerializer;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Codificación de los eventos de usuario para Kafka.
+ * Por defecto JSON (el formato histórico); con {@code kafka.events.format=avro} se usa Avro binario,
+ * que no repite nombres de campo y codifica el timestamp como un long. La versión de esquema
+ * viaja en el header {@value #HEADER_SCHEMA_VERSION} y se resuelve contra {@link EventSchemaRegistry}.
+ */
+@Component
+public class UserEventCodec {
+
+    public static final String FORMAT_JSON = "json";
+    public static final String FORMAT_AVRO = "avro";
+
+    public static final String CONTENT_TYPE_JSON = "application/json";
+    public static final String CONTENT_TYPE_AVRO = "avro/binary";
+
+    public static final String HEADER_CONTENT_TYPE = "content-type";
+    public static final String HEADER_EVENT_TYPE = "event-type";
+    public static final String HEADER_SCHEMA_VERSION = "schema-version";
+
+    private final EventSchemaRegistry schemaRegistry;
+    private final boolean avro;
+    private final JacksonJsonSerializer<Object> jsonSerializer = new JacksonJsonSerializer<>();
+    private final ObjectMapper jsonReader = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private final Map<Schema, GenericDatumWriter<GenericRecord>> writers = new ConcurrentHashMap<>();
+
+    public UserEventCodec(
+            EventSchemaRegistry schemaRegistry,
+            @Value("${kafka.events.format:json}") String format
+    ) {
+        this.schemaRegistry = schemaRegistry;
+        this.avro = FORMAT_AVRO.equalsIgnoreCase(format);
+        this.jsonSerializer.setAddTypeInfo(false);
+    }
+
+    /**
+     * Serializa el evento en el formato configurado.
+     */
+    public EncodedEvent encode(Object event) {
+        String eventType = event.getClass().getSimpleName();
+        if (!avro) {
+            return new EncodedEvent(eventType, CONTENT_TYPE_JSON, null, jsonSerializer.serialize(null, event));
+        }
+        int version = schemaRegistry.currentVersion(eventType);
+        Schema schema = schemaRegistry.schema(eventType, version);
+        return new EncodedEvent(eventType, CONTENT_TYPE_AVRO, version, writeAvro(schema, toRecord(event, schema)));
+    }
+
+    /**
+     * Reconstruye el evento a partir del payload y sus headers.
+     * Los mensajes Avro de versiones anteriores se leen con su esquema de escritura
+     * y se resuelven contra la versión actual. Un mensaje Avro sin versión de esquema se rechaza:
+     * sin el esquema de escritura no se puede interpretar el binario.
+     */
+    public Object decode(String eventType, String contentType, Integer schemaVersion, byte[] payload) {
+        Class<?> type = switch (eventType) {
+            case "UserRegisteredEvent" -> UserRegisteredEvent.class;
+            case "UserLoggedInEvent" -> UserLoggedInEvent.class;
+            default -> throw new IllegalArgumentException("Tipo de evento desconocido: " + eventType);
+        };
+        try {
+            if (!CONTENT_TYPE_AVRO.equals(contentType)) {
+                return jsonReader.readValue(payload, type);
+            }
+            if (schemaVersion == null) {
+                throw new IllegalArgumentException("Mensaje Avro de " + eventType + " sin header " + HEADER_SCHEMA_VERSION);
+            }
+            Schema writerSchema = schemaRegistry.schema(eventType, schemaVersion);
+            Schema readerSchema = schemaRegistry.schema(eventType, schemaRegistry.currentVersion(eventType));
+            GenericRecord record = new GenericDatumReader<GenericRecord>(writerSchema, readerSchema)
+                    .read(null, DecoderFactory.get().binaryDecoder(payload, null));
+            return fromRecord(type, record);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo decodificar " + eventType, e);
+        }
+    }
+
+    private byte[] writeAvro(Schema schema, GenericRecord record) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        BinaryEncoder encoder = EncoderFactory.get().directBinaryEncoder(out, null);
+        try {
+            writers.computeIfAbsent(schema, GenericDatumWriter::new).write(record, encoder);
+            encoder.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo serializar " + schema.getName(), e);
+        }
+        return out.toByteArray();
+    }
+
+    private static GenericRecord toRecord(Object event, Schema schema) {
+        GenericRecord record = new GenericData.Record(schema);
+        switch (event) {
+            case UserRegisteredEvent registered -> {
+                record.put("userId", registered.userId());
+                record.put("username", registered.username());
+                record.put("email", registered.email());
+                record.put("timestamp", toEpochMillis(registered.timestamp()));
+            }
+            case UserLoggedInEvent loggedIn -> {
+                record.put("userId", loggedIn.userId());
+                record.put("username", loggedIn.username());
+                record.put("timestamp", toEpochMillis(loggedIn.timestamp()));
+            }
+            default -> throw new IllegalArgumentException("Evento sin esquema Avro: " + event.getClass().getName());
+        }
+        return record;
+    }
+
+    private static Object fromRecord(Class<?> type, GenericRecord record) {
+        Long userId = (Long) record.get("userId");
+        String username = record.get("username").toString();
+        LocalDateTime timestamp = fromEpochMillis((Long) record.get("timestamp"));
+        if (type == UserRegisteredEvent.class) {
+            return new UserRegisteredEvent(userId, username, record.get("email").toString(), timestamp);
+        }
+        return new UserLoggedInEvent(userId, username, timestamp);
+    }
+
+    // local-timestamp-millis: fecha/hora local sin zona, codificada como si fuera UTC
+    private static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime fromEpochMillis(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,12 @@
+package com.pablovass.authservice.service.exception;
+
+/**
+ * Se lanza cuando el fichero de importación no se puede procesar (p. ej. cabecera CSV incompleta).
+ * Se traduce a 400 Bad Request; los errores de una fila concreta se informan en el {@code ImportReport}.
+ */
+public class InvalidImportFileException extends RuntimeException {
+
+    public InvalidImportFileException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,18 @@
+package com.pablovass.authservice.service.exception;
+
+import lombok.Getter;
+
+/**
+ * Se lanza cuando un recurso acotado (p. ej. el pool de hashing de contraseñas) está saturado.
+ * Se traduce a 503 Service Unavailable con cabecera Retry-After.
+ */
+@Getter
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,18 @@
+package com.pablovass.authservice.service.exception;
+
+import lombok.Getter;
+
+/**
+ * Se lanza cuando un cliente o una cuenta supera el límite de intentos (p. ej. de login).
+ * Se traduce a 429 Too Many Requests con cabecera Retry-After.
+ */
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
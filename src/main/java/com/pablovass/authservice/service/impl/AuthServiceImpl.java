@@ -1,152 +1,420 @@
 package com.pablovass.authservice.service.impl;
 
+import com.pablovass.authservice.controller.dto.AvailabilityResponse;
 import com.pablovass.authservice.controller.dto.LoginRequest;
 import com.pablovass.authservice.controller.dto.LoginResponse;
 import com.pablovass.authservice.controller.dto.RefreshRequest;
 import com.pablovass.authservice.controller.dto.RefreshResponse;
 import com.pablovass.authservice.controller.dto.RegisterRequest;
+import com.pablovass.authservice.controller.dto.SessionResponse;
 import com.pablovass.authservice.controller.dto.UserProfileResponse;
 import com.pablovass.authservice.controller.mapper.UserMapper;
+import com.pablovass.authservice.domain.model.AuthenticatedUser;
+import com.pablovass.authservice.domain.model.Role;
+import com.pablovass.authservice.domain.model.UserSnapshot;
 import com.pablovass.authservice.domain.model.entity.User;
 import com.pablovass.authservice.repository.UserRepository;
+import com.pablovass.authservice.repository.routing.ReadYourWrites;
 import com.pablovass.authservice.service.AuthService;
 import com.pablovass.authservice.service.JwtService;
+import com.pablovass.authservice.service.PasswordHashingService;
 import com.pablovass.authservice.service.RedisTokenService;
+import com.pablovass.authservice.service.UserSnapshotCache;
+import com.pablovass.authservice.service.availability.AvailabilityService;
+import com.pablovass.authservice.service.concurrency.StructuredFanOut;
 import com.pablovass.authservice.service.event.UserLoggedInEvent;
 import com.pablovass.authservice.service.event.UserRegisteredEvent;
+import com.pablovass.authservice.service.observability.AuthObservations;
+import com.pablovass.authservice.service.outbox.OutboxService;
+import com.pablovass.authservice.service.ratelimit.LoginRateLimiter;
+import com.pablovass.authservice.service.revocation.TokenRevocationService;
+import com.pablovass.authservice.service.token.RefreshRotation;
+import com.pablovass.authservice.service.token.RefreshToken;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class AuthServiceImpl implements AuthService {
 
+    private static final String REGISTER = "register";
+    private static final String LOGIN = "login";
+    private static final String REFRESH = "refresh";
+    private static final String PROFILE = "profile";
+    private static final String LOGOUT = "logout";
+    private static final String LOGOUT_ALL = "logout-all";
+
     private final UserRepository userRepository;
     private final UserMapper userMapper;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtService jwtService;
     private final RedisTokenService redisTokenService;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
-
-    @Value("${kafka.topic.user-events}")
-    private String userEventsTopic;
+    private final UserSnapshotCache userSnapshotCache;
+    private final OutboxService outboxService;
+    private final LoginRateLimiter loginRateLimiter;
+    private final AvailabilityService availabilityService;
+    private final ReadYourWrites readYourWrites;
+    private final AuthObservations observations;
+    private final TokenRevocationService tokenRevocationService;
+    private final StructuredFanOut structuredFanOut;
 
     @Value("${jwt.access-token-expiration}")
     private Long accessTokenExpiration;
 
+    // Refreshes en curso en este nodo por token: los duplicados concurrentes esperan al primero
+    private final Map<String, CompletableFuture<RefreshResponse>> refreshesInFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Inserta directamente y deja que las restricciones únicas detecten los duplicados:
+     * sin consultas previas y correcto ante registros concurrentes.
+     */
     @Override
     @Transactional
     public void register(RegisterRequest request) {
-        if (userRepository.existsByEmail(request.email())) {
-            throw new IllegalArgumentException("El email ya está registrado");
-        }
-        if (userRepository.existsByUsername(request.username())) {
-            throw new IllegalArgumentException("El nombre de usuario ya está en uso");
-        }
+        observations.operation(REGISTER, () -> {
+            User user = userMapper.toEntity(request);
+            user.setPassword(observations.phase(REGISTER, "hash", () -> passwordHashingService.encode(request.password())));
+            user.setRoleMask(Role.DEFAULT_MASK);
+
+            User savedUser = observations.phase(REGISTER, "insert", () -> {
+                try {
+                    return userRepository.saveAndFlush(user);
+                } catch (DataIntegrityViolationException e) {
+                    throw toConflict(e);
+                }
+            });
 
-        User user = userMapper.toEntity(request);
-        user.setPassword(passwordEncoder.encode(request.password()));
-        user.setRoles(Collections.singleton("ROLE_USER"));
-
-        User savedUser = userRepository.save(user);
-        
-        // Publicar evento Kafka UserRegistered
-        publishEvent(new UserRegisteredEvent(
-            savedUser.getId(),
-            savedUser.getUsername(),
-            savedUser.getEmail(),
-            LocalDateTime.now()
-        ));
+            // Encolar evento UserRegistered en la misma transacción que el alta
+            observations.phase(REGISTER, "enqueue-event", () -> outboxService.enqueueUserEvent(savedUser.getId(), new UserRegisteredEvent(
+                savedUser.getId(),
+                savedUser.getUsername(),
+                savedUser.getEmail(),
+                LocalDateTime.now()
+            )));
+
+            // El resto de nodos lo recibe por el topic de eventos
+            availabilityService.recordRegistered(savedUser.getUsername(), savedUser.getEmail());
+            observations.outcome("success");
+        });
     }
 
+    /**
+     * Sin transacción propia: el hash se verifica fuera de la base de datos
+     * y el evento se encola en una transacción corta al final.
+     * El limitador de intentos se evalúa antes de cualquier consulta o hash.
+     * La búsqueda va a una réplica; si el usuario acaba de registrarse y aún no se ha replicado,
+     * se repite en el primario.
+     * Tras verificar la contraseña, la sesión en Redis, la firma del access token y el evento
+     * se ejecutan en paralelo.
+     */
     @Override
-    @Transactional(readOnly = true)
-    public LoginResponse login(LoginRequest request) {
-        User user = userRepository.findByEmail(request.email())
-                .orElseThrow(() -> new BadCredentialsException("Credenciales inválidas"));
+    public LoginResponse login(LoginRequest request, String clientIp, String userAgent) {
+        return observations.operation(LOGIN, () -> doLogin(request, clientIp, userAgent));
+    }
 
-        if (!passwordEncoder.matches(request.password(), user.getPassword())) {
+    private LoginResponse doLogin(LoginRequest request, String clientIp, String userAgent) {
+        observations.phase(LOGIN, "rate-limit", () -> loginRateLimiter.acquire(clientIp, request.email()));
+
+        User user = observations.phase(LOGIN, "lookup",
+            () -> readYourWrites.findOrPrimary(() -> userRepository.findByEmailIgnoreCase(request.email())).orElse(null));
+        boolean matches = user != null
+            && observations.phase(LOGIN, "verify-password", () -> passwordHashingService.matches(request.password(), user.getPassword()));
+        if (!matches) {
+            loginRateLimiter.recordFailure(request.email());
+            observations.outcome("bad_credentials");
             throw new BadCredentialsException("Credenciales inválidas");
         }
+        loginRateLimiter.recordSuccess(request.email());
+
+        // Actualizar el hash si el algoritmo o el coste quedaron desactualizados
+        String currentHash = user.getPassword();
+        passwordHashingService.rehashInBackground(request.password(), currentHash,
+            newHash -> {
+                if (userRepository.updatePassword(user.getId(), currentHash, newHash) > 0) {
+                    userSnapshotCache.invalidate(user.getId());
+                }
+            });
 
-        // Generar Access Token
-        String role = user.getRoles().stream().findFirst().orElse("ROLE_USER");
-        String accessToken = jwtService.generateAccessToken(user.getId(), user.getUsername(), role);
+        // El id de sesión se genera aquí: el token puede firmarse mientras se escribe la sesión
+        RefreshToken refreshToken = RefreshToken.newSession(user.getId());
+        UserSnapshot snapshot = UserSnapshot.from(user);
+        Supplier<String> accessToken;
+        try (StructuredFanOut.Scope fanOut = structuredFanOut.open(LOGIN)) {
+            // Abrir una sesión para este dispositivo con su Refresh Token en Redis
+            fanOut.fork("refresh-token", () -> redisTokenService.openSession(refreshToken, clientIp, userAgent));
 
-        // Generar y guardar Refresh Token en Redis
-        String refreshToken = redisTokenService.generateAndStoreRefreshToken(user.getId());
+            // Generar Access Token ligado a la sesión
+            accessToken = fanOut.fork("access-token", () -> jwtService.generateAccessToken(snapshot, refreshToken.sessionId()));
 
-        // Publicar evento Kafka UserLoggedIn
-        publishEvent(new UserLoggedInEvent(
-            user.getId(),
-            user.getUsername(),
-            LocalDateTime.now()
-        ));
+            // Encolar evento UserLoggedIn
+            fanOut.fork("enqueue-event", () -> {
+                try {
+                    outboxService.enqueueUserEvent(user.getId(), new UserLoggedInEvent(
+                        user.getId(),
+                        user.getUsername(),
+                        LocalDateTime.now()
+                    ));
+                } catch (Exception e) {
+                    log.error("Error al encolar evento de login: {}", e.getMessage());
+                    // No bloqueamos el login si falla el registro del evento
+                }
+            });
+
+            fanOut.join();
+        }
 
+        observations.outcome("success");
         return new LoginResponse(
-            accessToken,
-            refreshToken,
+            accessToken.get(),
+            refreshToken.value(),
             accessTokenExpiration,
             user.getUsername()
         );
     }
 
+    /**
+     * Sin transacción propia: los duplicados esperan al refresh en curso sin retener una conexión.
+     */
     @Override
-    @Transactional(readOnly = true)
     public RefreshResponse refresh(RefreshRequest request) {
-        // Obtener userId desde el refresh token
-        Long userId = redisTokenService.getUserIdFromRefreshToken(request.refreshToken());
-        
-        if (userId == null) {
-            throw new BadCredentialsException("Refresh token inválido o expirado");
+        return observations.operation(REFRESH, () -> singleFlightRefresh(request.refreshToken()));
+    }
+
+    private RefreshResponse singleFlightRefresh(String refreshToken) {
+        CompletableFuture<RefreshResponse> mine = new CompletableFuture<>();
+        CompletableFuture<RefreshResponse> inFlight = refreshesInFlight.putIfAbsent(refreshToken, mine);
+        if (inFlight != null) {
+            observations.outcome("joined");
+            return observations.phase(REFRESH, "await-in-flight", () -> awaitInFlight(inFlight));
         }
 
-        // Validar que el token coincida con el almacenado
-        if (!redisTokenService.validateRefreshToken(userId, request.refreshToken())) {
+        try {
+            RefreshResponse response = rotateAndIssue(refreshToken);
+            mine.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            refreshesInFlight.remove(refreshToken, mine);
+        }
+    }
+
+    /**
+     * El userId viaja en el refresh token: la búsqueda del usuario se solapa con la rotación en Redis
+     * y se cancela si la rotación no emite un token nuevo. Un fallo de la búsqueda no interrumpe la
+     * rotación; si después de rotar no se puede emitir la respuesta (fallo o plazo vencido), la
+     * rotación se deshace para que el cliente pueda reintentar con el mismo token.
+     */
+    private RefreshResponse rotateAndIssue(String refreshToken) {
+        RefreshToken presented = RefreshToken.parse(refreshToken);
+        if (presented == null) {
+            observations.outcome("invalid");
             throw new BadCredentialsException("Refresh token inválido o expirado");
         }
 
-        // Buscar usuario en la base de datos
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new BadCredentialsException("Usuario no encontrado"));
+        Supplier<RefreshRotation> rotating;
+        Supplier<Optional<UserSnapshot>> lookup;
+        try (StructuredFanOut.Scope fanOut = structuredFanOut.open(REFRESH)) {
+            // Rotar el refresh token en un solo round trip
+            rotating = fanOut.fork("rotate", () -> {
+                RefreshRotation result = redisTokenService.rotateRefreshToken(refreshToken);
+                if (result.status() != RefreshRotation.Status.ROTATED) {
+                    fanOut.cancel();
+                }
+                return result;
+            });
+
+            // Buscar usuario (near-cache delante de la base de datos); su fallo se relanza tras la rotación
+            lookup = fanOut.forkIsolated("lookup", () -> userSnapshotCache.get(presented.userId()));
+
+            fanOut.join();
+        } catch (RuntimeException e) {
+            // Fallo de Redis o plazo vencido: la rotación pudo ejecutarse sin que el cliente reciba la respuesta
+            redisTokenService.abandonRotation(refreshToken);
+            throw e;
+        }
+        RefreshRotation rotation = rotating.get();
+        observations.outcome(rotation.status().name().toLowerCase(Locale.ROOT));
+
+        switch (rotation.status()) {
+            case GRACE -> {
+                return new RefreshResponse(rotation.accessToken(), rotation.refreshToken(), accessTokenExpiration);
+            }
+            case REUSED -> {
+                log.warn("⚠️ Reutilización de refresh token rotado para userId: {}. Sesión revocada", rotation.userId());
+                tokenRevocationService.revokeSession(rotation.sessionId());
+                throw new BadCredentialsException("Refresh token inválido o expirado");
+            }
+            case INVALID -> throw new BadCredentialsException("Refresh token inválido o expirado");
+            default -> {
+                // ROTATED: emitir la respuesta una sola vez
+            }
+        }
+
+        try {
+            UserSnapshot user = lookup.get()
+                    .orElseThrow(() -> new BadCredentialsException("Usuario no encontrado"));
+
+            // Generar nuevo Access Token
+            String newAccessToken = observations.phase(REFRESH, "access-token",
+                () -> jwtService.generateAccessToken(user, rotation.sessionId()));
+
+            // Cachear la respuesta para los duplicados dentro de la ventana de gracia
+            observations.phase(REFRESH, "complete-rotation",
+                () -> redisTokenService.completeRotation(refreshToken, rotation.refreshToken(), newAccessToken));
 
-        // Generar nuevo Access Token
-        String role = user.getRoles().stream().findFirst().orElse("ROLE_USER");
-        String newAccessToken = jwtService.generateAccessToken(user.getId(), user.getUsername(), role);
+            return new RefreshResponse(newAccessToken, rotation.refreshToken(), accessTokenExpiration);
+        } catch (RuntimeException e) {
+            // El cliente no recibirá el token nuevo: devolver la sesión al presentado para que pueda reintentar
+            redisTokenService.abandonRotation(refreshToken);
+            throw e;
+        }
+    }
 
-        return new RefreshResponse(newAccessToken, accessTokenExpiration);
+    /**
+     * Cierra la sesión del token presentado: su refresh token y todos los access tokens emitidos en ella.
+     * Los tokens anteriores a las sesiones (sin {@code sid}) se revocan por su jti.
+     */
+    @Override
+    public void logout(AuthenticatedUser principal) {
+        observations.operation(LOGOUT, () -> {
+            if (principal.sessionId() == null) {
+                observations.phase(LOGOUT, "revoke-access-token",
+                    () -> tokenRevocationService.revoke(principal.tokenId(), principal.expiresAt()));
+                observations.outcome("token");
+                return;
+            }
+            observations.phase(LOGOUT, "revoke-access-token", () -> tokenRevocationService.revokeSession(principal.sessionId()));
+            observations.phase(LOGOUT, "revoke-refresh-token",
+                () -> redisTokenService.revokeSession(principal.userId(), principal.sessionId()));
+            observations.outcome("success");
+        });
     }
 
+    /**
+     * Sube la época de tokens del usuario: todos los access tokens emitidos hasta ahora quedan revocados.
+     */
     @Override
-    @Transactional(readOnly = true)
-    public UserProfileResponse getProfile(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new BadCredentialsException("Usuario no encontrado"));
+    public void logoutAll(AuthenticatedUser principal) {
+        observations.operation(LOGOUT_ALL, () -> {
+            observations.phase(LOGOUT_ALL, "revoke-access-tokens", () -> tokenRevocationService.revokeAll(principal.userId()));
+            observations.phase(LOGOUT_ALL, "revoke-refresh-token", () -> redisTokenService.revokeAllSessions(principal.userId()));
+            log.info("🔒 Sesiones revocadas para userId: {}", principal.userId());
+            observations.outcome("success");
+        });
+    }
 
-        return new UserProfileResponse(
-            user.getId(),
-            user.getUsername(),
-            user.getEmail(),
-            user.getCreatedAt()
+    @Override
+    public List<SessionResponse> listSessions(AuthenticatedUser principal) {
+        return redisTokenService.listSessions(principal.userId()).stream()
+                .map(session -> new SessionResponse(
+                    session.id(),
+                    session.createdAt(),
+                    session.lastUsedAt(),
+                    session.expiresAt(),
+                    session.ipAddress(),
+                    session.userAgent(),
+                    session.id().equals(principal.sessionId())
+                ))
+                .toList();
+    }
+
+    /**
+     * Cierra una sesión del usuario (otro dispositivo) junto con sus access tokens.
+     */
+    @Override
+    public boolean revokeSession(AuthenticatedUser principal, String sessionId) {
+        if (!redisTokenService.revokeSession(principal.userId(), sessionId)) {
+            return false;
+        }
+        tokenRevocationService.revokeSession(sessionId);
+        return true;
+    }
+
+    @Override
+    public AvailabilityResponse checkAvailability(String username, String email, String clientIp) {
+        // Sin límite, la respuesta sirve para enumerar qué emails están registrados
+        loginRateLimiter.acquireLookup(clientIp);
+        return new AvailabilityResponse(
+            username != null && !username.isBlank() ? availabilityService.isUsernameAvailable(username) : null,
+            email != null && !email.isBlank() ? availabilityService.isEmailAvailable(email) : null
         );
     }
 
-    private void publishEvent(Object event) {
+    /**
+     * Traduce la restricción única violada al mismo 409 que devolvían las comprobaciones previas.
+     */
+    private static RuntimeException toConflict(DataIntegrityViolationException e) {
+        String constraint = e.getCause() instanceof ConstraintViolationException violation
+                ? violation.getConstraintName() : null;
+        // Sin nombre de restricción (esquemas antiguos), PostgreSQL informa "Key (email)=(...) already exists"
+        String detail = ((constraint != null ? constraint : "") + " " + e.getMostSpecificCause().getMessage())
+                .toLowerCase(Locale.ROOT);
+        if (detail.contains(User.EMAIL_CONSTRAINT) || detail.contains("(email)")) {
+            return new IllegalArgumentException("El email ya está registrado");
+        }
+        if (detail.contains(User.USERNAME_CONSTRAINT) || detail.contains("(username)")) {
+            return new IllegalArgumentException("El nombre de usuario ya está en uso");
+        }
+        return e;
+    }
+
+    private static RefreshResponse awaitInFlight(CompletableFuture<RefreshResponse> inFlight) {
         try {
-            kafkaTemplate.send(userEventsTopic, event);
-        } catch (Exception e) {
-            log.error("Error al publicar evento en Kafka: {}", e.getMessage());
-            // No bloqueamos el flujo principal si Kafka falla (Edge Case de la HU)
+            return inFlight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public UserProfileResponse getProfile(AuthenticatedUser principal, boolean fresh) {
+        return observations.operation(PROFILE, () -> loadProfile(principal, fresh));
+    }
+
+    private UserProfileResponse loadProfile(AuthenticatedUser principal, boolean fresh) {
+        // Perfil embebido en el token: sin consulta a la base de datos
+        if (!fresh && principal.hasProfile()) {
+            observations.outcome("token");
+            return new UserProfileResponse(
+                principal.userId(),
+                principal.username(),
+                principal.email(),
+                principal.createdAt()
+            );
         }
+
+        observations.outcome(fresh ? "database" : "cache");
+        UserSnapshot user = observations.phase(PROFILE, "lookup",
+                () -> fresh ? userSnapshotCache.reload(principal.userId()) : userSnapshotCache.get(principal.userId()))
+                .orElseThrow(() -> new BadCredentialsException("Usuario no encontrado"));
+
+        return new UserProfileResponse(
+            user.id(),
+            user.username(),
+            user.email(),
+            user.createdAt()
+        );
     }
 }
@@ -0,0 +1,11 @@
+package com.pablovass.authservice.service.importer;
+
+/**
+ * Fila del fichero de importación, con su número de línea para el informe.
+ */
+public record ImportRow(
+    long line,
+    String email,
+    String username,
+    String password
+) {}
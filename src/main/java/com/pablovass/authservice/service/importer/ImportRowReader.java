@@ -0,0 +1,154 @@
+package com.pablovass.authservice.service.importer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pablovass.authservice.service.exception.InvalidImportFileException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * Lee el fichero de importación línea a línea (CSV con cabecera o NDJSON) sin cargarlo entero en memoria.
+ * Las líneas mal formadas se devuelven como filas sin datos para que queden en el informe.
+ */
+public final class ImportRowReader implements Iterator<ImportRow> {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final BufferedReader reader;
+    private final Format format;
+    private int emailColumn = -1;
+    private int usernameColumn = -1;
+    private int passwordColumn = -1;
+    private long lineNumber;
+    private ImportRow next;
+
+    public ImportRowReader(InputStream input, Format format) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        this.format = format;
+        if (format == Format.CSV) {
+            readHeader();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = readRow();
+        }
+        return next != null;
+    }
+
+    @Override
+    public ImportRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ImportRow row = next;
+        next = null;
+        return row;
+    }
+
+    private void readHeader() {
+        String header = readLine();
+        if (header == null) {
+            return;
+        }
+        List<String> columns = splitCsv(header.startsWith("\uFEFF") ? header.substring(1) : header);
+        for (int i = 0; i < columns.size(); i++) {
+            switch (columns.get(i).trim().toLowerCase(Locale.ROOT)) {
+                case "email" -> emailColumn = i;
+                case "username" -> usernameColumn = i;
+                case "password" -> passwordColumn = i;
+                default -> { }
+            }
+        }
+        if (emailColumn < 0 || usernameColumn < 0 || passwordColumn < 0) {
+            throw new InvalidImportFileException("La cabecera CSV debe incluir email, username y password");
+        }
+    }
+
+    private ImportRow readRow() {
+        String line;
+        do {
+            line = readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        if (format == Format.CSV) {
+            List<String> fields = splitCsv(line);
+            return new ImportRow(lineNumber, field(fields, emailColumn), field(fields, usernameColumn), field(fields, passwordColumn));
+        }
+        try {
+            JsonNode node = JSON.readTree(line);
+            return new ImportRow(lineNumber, text(node, "email"), text(node, "username"), text(node, "password"));
+        } catch (IOException e) {
+            return new ImportRow(lineNumber, null, null, null);
+        }
+    }
+
+    private String readLine() {
+        try {
+            String line = reader.readLine();
+            if (line != null) {
+                lineNumber++;
+            }
+            return line;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al leer el fichero de importación", e);
+        }
+    }
+
+    private static String field(List<String> fields, int column) {
+        return column < fields.size() ? fields.get(column) : null;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value != null && value.isTextual() ? value.asText() : null;
+    }
+
+    /**
+     * Separa una línea CSV (RFC 4180 sin saltos de línea dentro de campos).
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+}
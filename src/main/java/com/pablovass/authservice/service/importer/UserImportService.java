@@ -0,0 +1,309 @@
+package com.pablovass.authservice.service.importer;
+
+import com.pablovass.authservice.controller.dto.ImportReport;
+import com.pablovass.authservice.controller.dto.RegisterRequest;
+import com.pablovass.authservice.domain.model.Role;
+import com.pablovass.authservice.service.UserSnapshotCache;
+import com.pablovass.authservice.service.availability.AvailabilityService;
+import com.pablovass.authservice.service.event.EncodedEvent;
+import com.pablovass.authservice.service.event.UserEventCodec;
+import com.pablovass.authservice.service.event.UserRegisteredEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.InputStream;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Importación masiva de usuarios desde un fichero en streaming.
+ * Procesa el fichero por lotes de {@code auth.import.batch-size} filas: valida con las mismas reglas
+ * que el alta, hashea en paralelo en un pool propio (no compite con el de login) e inserta con
+ * batches JDBC. Los ids se reservan por bloques de la secuencia de {@code users.id}, ya que
+ * {@code GenerationType.IDENTITY} impide a Hibernate agrupar inserts. Los duplicados se resuelven
+ * con {@code ON CONFLICT DO NOTHING} y se informan por fila. Con {@code reWriteBatchedInserts} el driver
+ * devuelve {@code SUCCESS_NO_INFO} para cada fila, así que las filas insertadas se determinan consultando
+ * los ids reservados (sólo este lote puede haberlos usado). Cada lote es una transacción que incluye
+ * los eventos del outbox; tras el commit se invalidan los snapshots de los usuarios insertados en todos los nodos.
+ */
+@Slf4j
+@Service
+public class UserImportService {
+
+    private static final String RESERVE_IDS_SQL =
+        "SELECT nextval(pg_get_serial_sequence('users', 'id')) FROM generate_series(1, ?)";
+    private static final String INSERT_USER_SQL =
+        "INSERT INTO users (id, email, username, password, role_mask, created_at) VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+    private static final String INSERT_OUTBOX_SQL =
+        "INSERT INTO outbox_events (topic, aggregate_id, event_type, content_type, schema_version, payload, created_at, attempts) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final Validator validator;
+    private final UserEventCodec userEventCodec;
+    private final AvailabilityService availabilityService;
+    private final UserSnapshotCache userSnapshotCache;
+    private final ExecutorService hashingExecutor;
+    private final Counter importedCounter;
+    private final Counter rejectedCounter;
+
+    @Value("${kafka.topic.user-events}")
+    private String userEventsTopic;
+
+    @Value("${auth.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${auth.import.max-rejected-details:1000}")
+    private int maxRejectedDetails;
+
+    public UserImportService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            PasswordEncoder passwordEncoder,
+            Validator validator,
+            UserEventCodec userEventCodec,
+            AvailabilityService availabilityService,
+            UserSnapshotCache userSnapshotCache,
+            MeterRegistry meterRegistry,
+            @Value("${auth.import.hashing-threads:0}") int hashingThreads
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.passwordEncoder = passwordEncoder;
+        this.validator = validator;
+        this.userEventCodec = userEventCodec;
+        this.availabilityService = availabilityService;
+        this.userSnapshotCache = userSnapshotCache;
+
+        int threads = hashingThreads > 0 ? hashingThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger sequence = new AtomicInteger();
+        this.hashingExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "user-import-hashing-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        new ExecutorServiceMetrics(hashingExecutor, "user.import.hashing", Tags.empty()).bindTo(meterRegistry);
+        this.importedCounter = meterRegistry.counter("auth.import.rows", "result", "imported");
+        this.rejectedCounter = meterRegistry.counter("auth.import.rows", "result", "rejected");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hashingExecutor.shutdownNow();
+    }
+
+    /**
+     * Importa el fichero completo y devuelve el informe con las filas rechazadas. Se cuentan todas,
+     * pero sólo se detallan las primeras {@code auth.import.max-rejected-details}: un fichero enorme
+     * y erróneo no debe acumular un rechazo por fila en memoria.
+     */
+    public ImportReport importUsers(InputStream input, ImportRowReader.Format format) {
+        ImportRowReader reader = new ImportRowReader(input, format);
+        Rejections rejected = new Rejections(maxRejectedDetails);
+        long total = 0;
+        long imported = 0;
+
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+        while (reader.hasNext()) {
+            batch.add(reader.next());
+            if (batch.size() == batchSize) {
+                imported += importBatch(batch, rejected);
+                total += batch.size();
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            imported += importBatch(batch, rejected);
+            total += batch.size();
+        }
+
+        log.info("📥 Importación finalizada: {} filas, {} importadas, {} rechazadas", total, imported, rejected.count);
+        return new ImportReport(total, imported, rejected.count, rejected.details);
+    }
+
+    private int importBatch(List<ImportRow> rows, Rejections rejected) {
+        List<ImportRow> valid = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            String violation = validate(row);
+            if (violation != null) {
+                reject(rejected, row, violation);
+            } else {
+                valid.add(row);
+            }
+        }
+        if (valid.isEmpty()) {
+            return 0;
+        }
+
+        List<String> hashes = hashAll(valid);
+        List<Long> inserted = transactionTemplate.execute(status -> insertBatch(valid, hashes, rejected));
+        if (inserted == null) {
+            return 0;
+        }
+        userSnapshotCache.invalidate(inserted);
+        return inserted.size();
+    }
+
+    private String validate(ImportRow row) {
+        Set<ConstraintViolation<RegisterRequest>> violations =
+            validator.validate(new RegisterRequest(row.email(), row.username(), row.password()));
+        return violations.isEmpty() ? null : violations.iterator().next().getMessage();
+    }
+
+    private List<String> hashAll(List<ImportRow> rows) {
+        List<CompletableFuture<String>> futures = rows.stream()
+                .map(row -> CompletableFuture.supplyAsync(() -> passwordEncoder.encode(row.password()), hashingExecutor))
+                .toList();
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    private List<Long> insertBatch(List<ImportRow> rows, List<String> hashes, Rejections rejected) {
+        List<Long> ids = jdbcTemplate.queryForList(RESERVE_IDS_SQL, Long.class, rows.size());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        int[][] results = jdbcTemplate.batchUpdate(INSERT_USER_SQL, indexes(rows.size()), rows.size(), (ps, i) -> {
+            ImportRow row = rows.get(i);
+            ps.setLong(1, ids.get(i));
+            ps.setString(2, row.email());
+            ps.setString(3, row.username());
+            ps.setString(4, hashes.get(i));
+            ps.setInt(5, Role.DEFAULT_MASK);
+            ps.setTimestamp(6, now);
+        });
+
+        Set<Long> insertedIds = insertedIds(ids, results);
+        List<Integer> insertedIndexes = new ArrayList<>(rows.size());
+        List<ImportRow> conflicts = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (insertedIds.contains(ids.get(i))) {
+                insertedIndexes.add(i);
+            } else {
+                conflicts.add(rows.get(i));
+            }
+        }
+        reportConflicts(conflicts, rejected);
+        if (insertedIndexes.isEmpty()) {
+            return List.of();
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_OUTBOX_SQL, insertedIndexes, insertedIndexes.size(), (ps, i) -> {
+            ImportRow row = rows.get(i);
+            EncodedEvent event = userEventCodec.encode(
+                new UserRegisteredEvent(ids.get(i), row.username(), row.email(), now.toLocalDateTime()));
+            ps.setString(1, userEventsTopic);
+            ps.setString(2, String.valueOf(ids.get(i)));
+            ps.setString(3, event.eventType());
+            ps.setString(4, event.contentType());
+            ps.setObject(5, event.schemaVersion());
+            ps.setBytes(6, event.payload());
+            ps.setTimestamp(7, now);
+        });
+
+        insertedIndexes.forEach(i -> availabilityService.recordRegistered(rows.get(i).username(), rows.get(i).email()));
+        importedCounter.increment(insertedIndexes.size());
+        return insertedIndexes.stream().map(ids::get).toList();
+    }
+
+    /**
+     * Ids reservados que acabaron insertados. Si el driver informa el recuento de cada fila se usa
+     * directamente; si alguna viene como {@code SUCCESS_NO_INFO} (batch reescrito) se consultan en la tabla.
+     */
+    private Set<Long> insertedIds(List<Long> ids, int[][] results) {
+        Set<Long> inserted = new HashSet<>(ids.size());
+        int index = 0;
+        for (int[] chunk : results) {
+            for (int count : chunk) {
+                if (count == Statement.SUCCESS_NO_INFO) {
+                    String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+                    return new HashSet<>(jdbcTemplate.queryForList(
+                        "SELECT id FROM users WHERE id IN (" + placeholders + ")", Long.class, ids.toArray()));
+                }
+                if (count > 0) {
+                    inserted.add(ids.get(index));
+                }
+                index++;
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Determina qué campo chocó: primero contra los emails ya presentes en la tabla
+     * (una consulta por lote) y si no, el username.
+     */
+    private void reportConflicts(List<ImportRow> conflicts, Rejections rejected) {
+        if (conflicts.isEmpty()) {
+            return;
+        }
+        String placeholders = String.join(",", Collections.nCopies(conflicts.size(), "lower(?)"));
+        Set<String> existingEmails = new HashSet<>(jdbcTemplate.queryForList(
+            "SELECT lower(email) FROM users WHERE lower(email) IN (" + placeholders + ")",
+            String.class,
+            conflicts.stream().map(ImportRow::email).toArray()
+        ));
+        for (ImportRow row : conflicts) {
+            reject(rejected, row, existingEmails.contains(row.email().toLowerCase(Locale.ROOT))
+                ? "El email ya está registrado"
+                : "El nombre de usuario ya está en uso");
+        }
+    }
+
+    private void reject(Rejections rejected, ImportRow row, String reason) {
+        rejected.add(new ImportReport.RejectedRow(row.line(), row.email(), reason));
+        rejectedCounter.increment();
+    }
+
+    /**
+     * Filas rechazadas: todas cuentan, sólo las primeras {@code limit} se guardan con detalle.
+     */
+    private static final class Rejections {
+
+        private final int limit;
+        private final List<ImportReport.RejectedRow> details = new ArrayList<>();
+        private long count;
+
+        private Rejections(int limit) {
+            this.limit = limit;
+        }
+
+        private void add(ImportReport.RejectedRow row) {
+            count++;
+            if (details.size() < limit) {
+                details.add(row);
+            }
+        }
+    }
+
+    private static List<Integer> indexes(int size) {
+        List<Integer> indexes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            indexes.add(i);
+        }
+        return indexes;
+    }
+}
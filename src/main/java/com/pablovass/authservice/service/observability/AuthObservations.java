@@ -0,0 +1,71 @@
+package com.pablovass.authservice.service.observability;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Observaciones de Micrometer para las operaciones de autenticación y sus fases.
+ * Cada operación ({@code login}, {@code refresh}, {@code register}, {@code profile}) genera el timer
+ * {@code auth.operation} y cada fase (búsqueda, hash, firma, Redis...) el timer {@code auth.phase};
+ * con tracing activo, la operación es un span y cada fase un span hijo, así que la traza muestra
+ * dónde empieza y termina cada fase. Las excepciones quedan en la etiqueta {@code error} y el resultado
+ * de la operación en {@code outcome} (siempre presente: Prometheus exige las mismas etiquetas por métrica).
+ */
+@Component
+public class AuthObservations {
+
+    public static final String OPERATION = "auth.operation";
+    public static final String PHASE = "auth.phase";
+
+    private static final String OUTCOME = "outcome";
+    private static final String UNKNOWN = "unknown";
+
+    private final ObservationRegistry registry;
+
+    public AuthObservations(ObservationRegistry registry) {
+        this.registry = registry;
+    }
+
+    public <T> T operation(String operation, Supplier<T> action) {
+        return operationObservation(operation).observe(action);
+    }
+
+    public void operation(String operation, Runnable action) {
+        operationObservation(operation).observe(action);
+    }
+
+    public <T> T phase(String operation, String phase, Supplier<T> action) {
+        return phaseObservation(operation, phase).observe(action);
+    }
+
+    public void phase(String operation, String phase, Runnable action) {
+        phaseObservation(operation, phase).observe(action);
+    }
+
+    /**
+     * Fija el resultado de la operación en curso; debe llamarse fuera de las fases.
+     */
+    public void outcome(String outcome) {
+        Observation current = registry.getCurrentObservation();
+        if (current != null) {
+            current.lowCardinalityKeyValue(OUTCOME, outcome);
+        }
+    }
+
+    private Observation operationObservation(String operation) {
+        return Observation.createNotStarted(OPERATION, registry)
+                .lowCardinalityKeyValue("operation", operation)
+                .lowCardinalityKeyValue(OUTCOME, UNKNOWN)
+                .contextualName("auth " + operation);
+    }
+
+    private Observation phaseObservation(String operation, String phase) {
+        return Observation.createNotStarted(PHASE, registry)
+                .lowCardinalityKeyValue("operation", operation)
+                .lowCardinalityKeyValue("phase", phase)
+                .contextualName(operation + " " + phase);
+    }
+}
@@ -0,0 +1,216 @@
+package com.pablovass.authservice.service.outbox;
+
+import com.pablovass.authservice.domain.model.entity.OutboxEvent;
+import com.pablovass.authservice.repository.OutboxEventRepository;
+import com.pablovass.authservice.service.event.UserEventCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Drena el outbox en lotes y publica los eventos en Kafka.
+ * Un único nodo drena a la vez: cada lote toma el lock consultivo del relay en su transacción
+ * (los demás nodos saltan el ciclo), así el orden por usuario se mantiene con varias instancias.
+ * Cada lote se bloquea con {@code FOR UPDATE SKIP LOCKED}, se envía completo antes de esperar
+ * las confirmaciones (el productor agrupa los envíos) y se marca como enviado en la misma transacción.
+ * Los eventos no confirmados quedan pendientes para el siguiente ciclo: la entrega es at-least-once
+ * y el productor idempotente evita duplicados por reintentos internos. Un evento que agota
+ * {@code outbox.relay.max-attempts} se aparca ({@code parked_at}) para revisión manual y deja de
+ * seleccionarse, de modo que no bloquea la cabeza de la cola.
+ * Cada mensaje lleva como clave el {@code userId}, así los eventos de un usuario van a la misma
+ * partición y conservan su orden. Si un evento falla, los siguientes del mismo agregado en el lote no se
+ * envían (o no se marcan como enviados) y el siguiente ciclo los reintenta en orden tras él. Los headers {@code content-type}, {@code event-type} y
+ * {@code schema-version} describen el formato del payload.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    // Clave del lock consultivo de PostgreSQL que serializa el relay entre nodos ("outbox")
+    static final long RELAY_LOCK_ID = 0x6F7574626F78L;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long sendTimeoutMillis;
+    private final int maxAttempts;
+    private final long retentionMillis;
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Counter parkedCounter;
+    private final Timer batchTimer;
+    private final Timer sendSuccessTimer;
+    private final Timer sendFailureTimer;
+
+    public OutboxRelay(
+            OutboxEventRepository outboxEventRepository,
+            KafkaTemplate<String, byte[]> kafkaTemplate,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${outbox.relay.batch-size:200}") int batchSize,
+            @Value("${outbox.relay.send-timeout:10000}") long sendTimeoutMillis,
+            @Value("${outbox.relay.max-attempts:10}") int maxAttempts,
+            @Value("${outbox.retention:86400000}") long retentionMillis
+    ) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+        this.maxAttempts = maxAttempts;
+        this.retentionMillis = retentionMillis;
+        this.sentCounter = meterRegistry.counter("outbox.relay.events", "result", "sent");
+        this.failedCounter = meterRegistry.counter("outbox.relay.events", "result", "failed");
+        this.parkedCounter = meterRegistry.counter("outbox.relay.events", "result", "parked");
+        this.batchTimer = Timer.builder("outbox.relay.batch.duration")
+                .description("Tiempo en publicar y confirmar un lote del outbox")
+                .register(meterRegistry);
+        this.sendSuccessTimer = sendTimer(meterRegistry, "success");
+        this.sendFailureTimer = sendTimer(meterRegistry, "failure");
+    }
+
+    private static Timer sendTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("outbox.relay.send.latency")
+                .description("Tiempo desde el envío hasta la confirmación del broker")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Publica lotes mientras vengan llenos y confirmados por completo.
+     */
+    @Scheduled(fixedDelayString = "${outbox.relay.poll-interval:500}")
+    public void relay() {
+        try {
+            Integer sent;
+            do {
+                sent = transactionTemplate.execute(status -> batchTimer.record(this::relayBatch));
+            } while (sent != null && sent == batchSize);
+        } catch (Exception e) {
+            log.error("❌ Error al drenar el outbox: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Elimina los eventos ya enviados con más antigüedad que {@code outbox.retention}.
+     */
+    @Scheduled(fixedDelayString = "${outbox.cleanup-interval:3600000}")
+    public void purgeSent() {
+        try {
+            int purged = outboxEventRepository.deleteSentBefore(LocalDateTime.now().minus(Duration.ofMillis(retentionMillis)));
+            if (purged > 0) {
+                log.debug("🧹 {} eventos enviados eliminados del outbox", purged);
+            }
+        } catch (Exception e) {
+            log.error("❌ Error al purgar el outbox: {}", e.getMessage());
+        }
+    }
+
+    int relayBatch() {
+        if (!outboxEventRepository.tryLockRelay(RELAY_LOCK_ID)) {
+            // Otro nodo está drenando el outbox
+            return 0;
+        }
+        List<OutboxEvent> batch = outboxEventRepository.lockNextBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // Agregados con un evento fallido: sus eventos posteriores no deben adelantarse
+        Set<String> failedAggregates = new HashSet<>();
+        List<CompletableFuture<SendResult<String, byte[]>>> results = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            if (failedAggregates.contains(event.getAggregateId())) {
+                results.add(null);
+                continue;
+            }
+            CompletableFuture<SendResult<String, byte[]>> result = send(event);
+            if (result.isCompletedExceptionally()) {
+                failedAggregates.add(event.getAggregateId());
+            }
+            results.add(result);
+        }
+        kafkaTemplate.flush();
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        LocalDateTime sentAt = LocalDateTime.now();
+        int sent = 0;
+        failedAggregates.clear();
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEvent event = batch.get(i);
+            if (failedAggregates.contains(event.getAggregateId())) {
+                // Aunque el broker lo haya confirmado, se reenvía después del evento fallido
+                continue;
+            }
+            try {
+                results.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                event.setSentAt(sentAt);
+                sent++;
+            } catch (ExecutionException | TimeoutException e) {
+                event.setAttempts(event.getAttempts() + 1);
+                failedAggregates.add(event.getAggregateId());
+                if (event.getAttempts() >= maxAttempts) {
+                    event.setParkedAt(sentAt);
+                    parkedCounter.increment();
+                    log.error("🅿️ Evento {} del outbox aparcado tras {} intentos: {}", event.getId(), event.getAttempts(), e.getMessage());
+                } else {
+                    log.warn("⚠️ Evento {} del outbox no confirmado (intento {}): {}", event.getId(), event.getAttempts(), e.getMessage());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        sentCounter.increment(sent);
+        failedCounter.increment(batch.size() - sent);
+        return sent;
+    }
+
+    private CompletableFuture<SendResult<String, byte[]>> send(OutboxEvent event) {
+        long start = System.nanoTime();
+        try {
+            return kafkaTemplate.send(toRecord(event))
+                    .whenComplete((result, error) -> (error == null ? sendSuccessTimer : sendFailureTimer)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        } catch (Exception e) {
+            // Fallo síncrono (p.ej. metadata no disponible tras max.block.ms)
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    static ProducerRecord<String, byte[]> toRecord(OutboxEvent event) {
+        ProducerRecord<String, byte[]> record =
+            new ProducerRecord<>(event.getTopic(), event.getAggregateId(), event.getPayload());
+        String contentType = event.getContentType() != null ? event.getContentType() : UserEventCodec.CONTENT_TYPE_JSON;
+        record.headers().add(UserEventCodec.HEADER_CONTENT_TYPE, contentType.getBytes(StandardCharsets.UTF_8));
+        record.headers().add(UserEventCodec.HEADER_EVENT_TYPE, event.getEventType().getBytes(StandardCharsets.UTF_8));
+        if (event.getSchemaVersion() != null) {
+            record.headers().add(UserEventCodec.HEADER_SCHEMA_VERSION,
+                String.valueOf(event.getSchemaVersion()).getBytes(StandardCharsets.UTF_8));
+        }
+        return record;
+    }
+}
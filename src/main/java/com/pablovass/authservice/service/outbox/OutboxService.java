@@ -0,0 +1,49 @@
+package com.pablovass.authservice.service.outbox;
+
+import com.pablovass.authservice.domain.model.entity.OutboxEvent;
+import com.pablovass.authservice.repository.OutboxEventRepository;
+import com.pablovass.authservice.service.event.EncodedEvent;
+import com.pablovass.authservice.service.event.UserEventCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Registra eventos de usuario en el outbox en lugar de publicarlos en Kafka durante la petición.
+ * El evento se serializa aquí con {@link UserEventCodec} (JSON o Avro según configuración),
+ * así el relay sólo envía bytes y los headers que lo describen.
+ */
+@Service
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final UserEventCodec userEventCodec;
+    private final String userEventsTopic;
+
+    public OutboxService(
+            OutboxEventRepository outboxEventRepository,
+            UserEventCodec userEventCodec,
+            @Value("${kafka.topic.user-events}") String userEventsTopic
+    ) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.userEventCodec = userEventCodec;
+        this.userEventsTopic = userEventsTopic;
+    }
+
+    /**
+     * Encola el evento en la transacción en curso, de modo que se confirma o descarta
+     * junto con el cambio que lo origina. Sin transacción activa abre una propia.
+     */
+    @Transactional
+    public void enqueueUserEvent(Long userId, Object event) {
+        EncodedEvent encoded = userEventCodec.encode(event);
+        outboxEventRepository.save(OutboxEvent.builder()
+                .topic(userEventsTopic)
+                .aggregateId(String.valueOf(userId))
+                .eventType(encoded.eventType())
+                .contentType(encoded.contentType())
+                .schemaVersion(encoded.schemaVersion())
+                .payload(encoded.payload())
+                .build());
+    }
+}
@@ -0,0 +1,243 @@
+package com.pablovass.authservice.service.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pablovass.authservice.service.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limitador de intentos de login en dos niveles, evaluado antes de tocar la base de datos o el hash:
+ * <ol>
+ *   <li>Token buckets locales por IP y por email: cortan ráfagas en el propio nodo sin ir a Redis.</li>
+ *   <li>Ventana deslizante en Redis (ZSET por IP y por email) compartida entre nodos, junto con
+ *       el bloqueo progresivo de la cuenta tras fallos consecutivos. La IP y la cuenta se evalúan
+ *       con scripts separados y las claves de cada una llevan su hash tag ({@code {ip}}, {@code {email}}),
+ *       de modo que funcionan en Redis Cluster.</li>
+ * </ol>
+ * Si Redis no está disponible se aplica sólo el nivel local. Las consultas de disponibilidad, que
+ * permiten averiguar si un email está registrado, tienen su propio bucket local por IP. Las decisiones
+ * se exponen como {@code auth.login.attempts{result, reason}}.
+ */
+@Slf4j
+@Service
+public class LoginRateLimiter {
+
+    private static final String WINDOW_KEY_PREFIX = "login_rl:";
+    private static final String FAILURES_KEY_PREFIX = "login_failures:";
+    private static final String LOCK_KEY_PREFIX = "login_lock:";
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ADMIT_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/redis/login_rate_limit.lua"), List.class);
+    private static final RedisScript<Long> FAILURE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/redis/login_failure.lua"), Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Cache<String, TokenBucket> buckets;
+
+    @Value("${auth.login-rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${auth.login-rate-limit.local.ip-capacity:20}")
+    private long ipCapacity;
+
+    @Value("${auth.login-rate-limit.local.ip-refill-per-second:1}")
+    private double ipRefillPerSecond;
+
+    @Value("${auth.login-rate-limit.local.email-capacity:5}")
+    private long emailCapacity;
+
+    @Value("${auth.login-rate-limit.local.email-refill-per-second:0.2}")
+    private double emailRefillPerSecond;
+
+    @Value("${auth.login-rate-limit.local.lookup-capacity:10}")
+    private long lookupCapacity;
+
+    @Value("${auth.login-rate-limit.local.lookup-refill-per-second:0.5}")
+    private double lookupRefillPerSecond;
+
+    @Value("${auth.login-rate-limit.window:60000}")
+    private long windowMillis;
+
+    @Value("${auth.login-rate-limit.ip-limit:60}")
+    private long ipLimit;
+
+    @Value("${auth.login-rate-limit.email-limit:10}")
+    private long emailLimit;
+
+    @Value("${auth.login-rate-limit.failure-window:900000}")
+    private long failureWindowMillis;
+
+    @Value("${auth.login-rate-limit.failure-threshold:3}")
+    private long failureThreshold;
+
+    @Value("${auth.login-rate-limit.lockout-base:1000}")
+    private long lockoutBaseMillis;
+
+    @Value("${auth.login-rate-limit.lockout-max:300000}")
+    private long lockoutMaxMillis;
+
+    public LoginRateLimiter(
+            RedisTemplate<String, String> redisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${auth.login-rate-limit.local.max-keys:100000}") long maxKeys
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+    }
+
+    /**
+     * Admite el intento o lanza {@link TooManyRequestsException} con el tiempo de espera.
+     */
+    public void acquire(String clientIp, String email) {
+        if (!enabled) {
+            return;
+        }
+        String account = normalize(email);
+        long now = System.nanoTime();
+
+        long ipWait = buckets.get("ip:" + clientIp, key -> new TokenBucket(ipCapacity, ipRefillPerSecond, now)).tryConsume(now);
+        if (ipWait > 0) {
+            reject("ip", TimeUnit.NANOSECONDS.toMillis(ipWait));
+        }
+        long emailWait = buckets.get("email:" + account, key -> new TokenBucket(emailCapacity, emailRefillPerSecond, now)).tryConsume(now);
+        if (emailWait > 0) {
+            reject("email", TimeUnit.NANOSECONDS.toMillis(emailWait));
+        }
+
+        List<?> result;
+        try {
+            String attempt = UUID.randomUUID().toString();
+            result = admit(List.of(WINDOW_KEY_PREFIX + "ip:" + tag(clientIp)), ipLimit, "ip", attempt);
+            if (isAdmitted(result)) {
+                result = admit(List.of(WINDOW_KEY_PREFIX + "email:" + tag(account), LOCK_KEY_PREFIX + tag(account)),
+                    emailLimit, "email", attempt);
+            }
+        } catch (Exception e) {
+            // Sin Redis seguimos protegidos por los buckets locales
+            log.warn("⚠️ Limitador de login sin Redis, se aplica sólo el nivel local: {}", e.getMessage());
+            counter("admitted", "local_only").increment();
+            return;
+        }
+
+        if (!isAdmitted(result)) {
+            reject((String) result.get(2), Long.parseLong((String) result.get(1)));
+        }
+        counter("admitted", "none").increment();
+    }
+
+    /**
+     * Admite una consulta de disponibilidad de la IP o lanza {@link TooManyRequestsException}.
+     * Usa un bucket distinto del de login para que las consultas del formulario de alta no consuman intentos.
+     */
+    public void acquireLookup(String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        long wait = buckets.get("lookup:" + clientIp, key -> new TokenBucket(lookupCapacity, lookupRefillPerSecond, now)).tryConsume(now);
+        if (wait > 0) {
+            reject("lookup", TimeUnit.NANOSECONDS.toMillis(wait), "Demasiadas consultas de disponibilidad");
+        }
+    }
+
+    /**
+     * Registra un intento fallido; a partir del umbral la cuenta se bloquea con retardo exponencial.
+     */
+    public void recordFailure(String email) {
+        if (!enabled) {
+            return;
+        }
+        String account = normalize(email);
+        try {
+            Long lockout = redisTemplate.execute(
+                FAILURE_SCRIPT,
+                List.of(FAILURES_KEY_PREFIX + tag(account), LOCK_KEY_PREFIX + tag(account)),
+                String.valueOf(failureWindowMillis), String.valueOf(failureThreshold),
+                String.valueOf(lockoutBaseMillis), String.valueOf(lockoutMaxMillis)
+            );
+            if (lockout != null && lockout > 0) {
+                log.warn("🔒 Cuenta bloqueada {} ms tras fallos de login consecutivos", lockout);
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudo registrar el login fallido: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Un login correcto reinicia el contador de fallos de la cuenta.
+     */
+    public void recordSuccess(String email) {
+        if (!enabled) {
+            return;
+        }
+        String account = normalize(email);
+        try {
+            redisTemplate.delete(List.of(FAILURES_KEY_PREFIX + tag(account), LOCK_KEY_PREFIX + tag(account)));
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudo reiniciar el contador de fallos: {}", e.getMessage());
+        }
+    }
+
+    private List<?> admit(List<String> keys, long limit, String reason, String attempt) {
+        return redisTemplate.execute(
+            ADMIT_SCRIPT, keys,
+            String.valueOf(System.currentTimeMillis()), String.valueOf(windowMillis),
+            String.valueOf(limit), attempt, reason
+        );
+    }
+
+    private static boolean isAdmitted(List<?> result) {
+        return result == null || !"REJECT".equals(result.get(0));
+    }
+
+    /**
+     * Hash tag de Redis Cluster: todas las claves de un mismo sujeto caen en el mismo slot.
+     */
+    private static String tag(String subject) {
+        return "{" + subject + "}";
+    }
+
+    static String normalize(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private void reject(String reason, long retryAfterMillis) {
+        reject(reason, retryAfterMillis, "Demasiados intentos de inicio de sesión");
+    }
+
+    private void reject(String reason, long retryAfterMillis, String message) {
+        counter("rejected", reason).increment();
+        long retryAfterSeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(retryAfterMillis + 999));
+        throw new TooManyRequestsException(message, retryAfterSeconds);
+    }
+
+    private Counter counter(String result, String reason) {
+        return counters.computeIfAbsent(result + ":" + reason, key -> Counter.builder("auth.login.attempts")
+                .description("Intentos de login admitidos o rechazados por el limitador")
+                .tag("result", result)
+                .tag("reason", reason)
+                .register(meterRegistry));
+    }
+}
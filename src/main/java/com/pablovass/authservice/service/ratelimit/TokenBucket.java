@@ -0,0 +1,35 @@
+package com.pablovass.authservice.service.ratelimit;
+
+/**
+ * Token bucket en memoria: {@code capacity} intentos de ráfaga que se reponen
+ * a razón de {@code refillPerSecond}. El tiempo se pasa explícitamente (nanos) para poder testearlo.
+ */
+final class TokenBucket {
+
+    private final double capacity;
+    private final double refillPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    TokenBucket(long capacity, double refillPerSecond, long nowNanos) {
+        this.capacity = capacity;
+        this.refillPerNano = refillPerSecond / 1_000_000_000d;
+        this.tokens = capacity;
+        this.lastRefill = nowNanos;
+    }
+
+    /**
+     * Consume un token si hay disponible.
+     *
+     * @return 0 si se consumió, o los nanosegundos hasta que haya un token disponible
+     */
+    synchronized long tryConsume(long nowNanos) {
+        tokens = Math.min(capacity, tokens + (nowNanos - lastRefill) * refillPerNano);
+        lastRefill = nowNanos;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / refillPerNano);
+    }
+}
@@ -0,0 +1,291 @@
+package com.pablovass.authservice.service.revocation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.pablovass.authservice.service.availability.BloomFilter;
+import com.pablovass.authservice.service.token.VerifiedToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Revocación de access tokens sin round trip a Redis en el camino habitual (token no revocado).
+ * Logout revoca el {@code jti} del token ({@code revoked_jti:{jti}} con TTL hasta su {@code exp}) o su sesión
+ * ({@code revoked_sid:{sid}} durante la vida de un access token), que invalida todos los tokens de ese dispositivo;
+ * "cerrar todas las sesiones" sube la época del usuario ({@code token_epoch:{userId}}) y los tokens
+ * con un claim {@code ep} anterior dejan de valer.
+ * Los scripts publican la revocación en {@code auth.revocation.channel} y cada nodo la replica en
+ * un filtro de Bloom rotatorio de jti/sesiones y un mapa de épocas en memoria: un "no" del filtro es definitivo
+ * y sólo un "quizá" se confirma contra Redis. Pub/sub no garantiza la entrega, así que al arrancar y
+ * periódicamente se resincroniza con SCAN.
+ * Métricas: {@code auth.revocation.checks{source}}, {@code auth.revocation.false_positives}
+ * y {@code auth.revocation.revoked{scope}}.
+ */
+@Slf4j
+@Service
+public class TokenRevocationService {
+
+    private static final String REVOKED_KEY_PREFIX = "revoked_jti:";
+    private static final String SESSION_KEY_PREFIX = "revoked_sid:";
+    private static final String EPOCH_KEY_PREFIX = "token_epoch:";
+    private static final String JTI_MESSAGE = "jti";
+    private static final String SESSION_MESSAGE = "sid";
+    private static final String EPOCH_MESSAGE = "epoch";
+    private static final String SEPARATOR = " ";
+    private static final int SCAN_BATCH = 1000;
+
+    private static final RedisScript<Long> REVOKE_TOKEN_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/redis/revoke_access_token.lua"), Long.class);
+    private static final RedisScript<Long> REVOKE_ALL_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/redis/revoke_all_tokens.lua"), Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final String channel;
+    private final long accessTokenExpiration;
+    private final long expectedRevocations;
+    private final double falsePositiveRate;
+    private final Cache<Long, Long> epochs;
+
+    private final Counter filterChecks;
+    private final Counter epochChecks;
+    private final Counter redisChecks;
+    private final Counter falsePositives;
+    private final Counter tokenRevocations;
+    private final Counter sessionRevocations;
+    private final Counter userRevocations;
+
+    // Dos generaciones de una vida de access token cada una: un jti o sesión se consulta al menos hasta su exp
+    private volatile BloomFilter current;
+    private volatile BloomFilter previous;
+
+    public TokenRevocationService(
+            RedisTemplate<String, String> redisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${jwt.access-token-expiration}") long accessTokenExpiration,
+            @Value("${auth.revocation.channel:auth:token-revocations}") String channel,
+            @Value("${auth.revocation.expected-revocations:100000}") long expectedRevocations,
+            @Value("${auth.revocation.false-positive-rate:0.001}") double falsePositiveRate
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        this.accessTokenExpiration = accessTokenExpiration;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveRate = falsePositiveRate;
+        this.current = BloomFilter.create(expectedRevocations, falsePositiveRate);
+        this.previous = BloomFilter.create(expectedRevocations, falsePositiveRate);
+        // Sin límite de tamaño: perder una época aceptaría tokens revocados. Cada entrada vive lo que un access token
+        this.epochs = Caffeine.newBuilder()
+                .expireAfter(Expiry.writing((Long userId, Long epoch) -> remaining(epoch + accessTokenExpiration)))
+                .build();
+
+        this.filterChecks = meterRegistry.counter("auth.revocation.checks", "source", "filter");
+        this.epochChecks = meterRegistry.counter("auth.revocation.checks", "source", "epoch");
+        this.redisChecks = meterRegistry.counter("auth.revocation.checks", "source", "redis");
+        this.falsePositives = meterRegistry.counter("auth.revocation.false_positives");
+        this.tokenRevocations = meterRegistry.counter("auth.revocation.revoked", "scope", "token");
+        this.sessionRevocations = meterRegistry.counter("auth.revocation.revoked", "scope", "session");
+        this.userRevocations = meterRegistry.counter("auth.revocation.revoked", "scope", "user");
+        Gauge.builder("auth.revocation.bloom.expected_fpp", this, service -> service.current.expectedFalsePositiveRate())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Revoca un access token hasta su expiración y lo anuncia al resto de nodos.
+     */
+    public void revoke(String tokenId, Instant expiresAt) {
+        long ttl = Duration.between(Instant.now(), expiresAt).toMillis();
+        if (tokenId == null || ttl <= 0) {
+            return;
+        }
+        redisTemplate.execute(REVOKE_TOKEN_SCRIPT, List.of(REVOKED_KEY_PREFIX + tokenId),
+            String.valueOf(ttl), channel, JTI_MESSAGE + SEPARATOR + tokenId);
+        recordRevoked(REVOKED_KEY_PREFIX, tokenId);
+        tokenRevocations.increment();
+    }
+
+    /**
+     * Revoca todos los access tokens emitidos para una sesión (dispositivo) y lo anuncia al resto de nodos.
+     */
+    public void revokeSession(String sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        redisTemplate.execute(REVOKE_TOKEN_SCRIPT, List.of(SESSION_KEY_PREFIX + sessionId),
+            String.valueOf(accessTokenExpiration), channel, SESSION_MESSAGE + SEPARATOR + sessionId);
+        recordRevoked(SESSION_KEY_PREFIX, sessionId);
+        sessionRevocations.increment();
+    }
+
+    /**
+     * Revoca todos los access tokens emitidos hasta ahora para el usuario.
+     */
+    public void revokeAll(Long userId) {
+        Long epoch = redisTemplate.execute(REVOKE_ALL_SCRIPT, List.of(EPOCH_KEY_PREFIX + userId),
+            String.valueOf(accessTokenExpiration), channel, EPOCH_MESSAGE + SEPARATOR + userId);
+        if (epoch != null) {
+            recordEpoch(userId, epoch);
+        }
+        userRevocations.increment();
+    }
+
+    /**
+     * Comprueba si el token está revocado. Sin acceso a Redis salvo que el filtro dé positivo;
+     * si Redis no responde en ese caso el token se considera revocado.
+     */
+    public boolean isRevoked(VerifiedToken token) {
+        if (token.epoch() < currentEpoch(token.userId())) {
+            epochChecks.increment();
+            return true;
+        }
+        boolean tokenListed = mightBeRevoked(REVOKED_KEY_PREFIX, token.tokenId());
+        boolean sessionListed = mightBeRevoked(SESSION_KEY_PREFIX, token.sessionId());
+        if (!tokenListed && !sessionListed) {
+            filterChecks.increment();
+            return false;
+        }
+
+        redisChecks.increment();
+        try {
+            boolean revoked = (tokenListed && Boolean.TRUE.equals(redisTemplate.hasKey(REVOKED_KEY_PREFIX + token.tokenId())))
+                || (sessionListed && Boolean.TRUE.equals(redisTemplate.hasKey(SESSION_KEY_PREFIX + token.sessionId())));
+            if (!revoked) {
+                falsePositives.increment();
+            }
+            return revoked;
+        } catch (Exception e) {
+            log.error("❌ No se pudo confirmar la revocación del token {}: {}", token.tokenId(), e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Época vigente del usuario según este nodo (0 si nunca cerró todas sus sesiones).
+     */
+    public long currentEpoch(Long userId) {
+        Long epoch = epochs.getIfPresent(userId);
+        return epoch != null ? epoch : 0L;
+    }
+
+    /**
+     * Aplica una revocación recibida por pub/sub: {@code jti {jti}}, {@code sid {sessionId}}
+     * o {@code epoch {userId} {epoch}}.
+     */
+    public void handleMessage(String message) {
+        String[] parts = message.split(SEPARATOR);
+        try {
+            if (parts.length == 2 && JTI_MESSAGE.equals(parts[0])) {
+                recordRevoked(REVOKED_KEY_PREFIX, parts[1]);
+            } else if (parts.length == 2 && SESSION_MESSAGE.equals(parts[0])) {
+                recordRevoked(SESSION_KEY_PREFIX, parts[1]);
+            } else if (parts.length == 3 && EPOCH_MESSAGE.equals(parts[0])) {
+                recordEpoch(Long.valueOf(parts[1]), Long.parseLong(parts[2]));
+            } else {
+                log.warn("⚠️ Mensaje de revocación ignorado: {}", message);
+            }
+        } catch (NumberFormatException e) {
+            log.warn("⚠️ Mensaje de revocación ignorado: {}", message);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        resync();
+    }
+
+    /**
+     * Recorre las revocaciones vigentes en Redis para recuperar mensajes perdidos.
+     */
+    @Scheduled(initialDelayString = "${auth.revocation.resync-interval:60000}",
+               fixedDelayString = "${auth.revocation.resync-interval:60000}")
+    public void resync() {
+        try {
+            int tokens = 0;
+            for (String prefix : List.of(REVOKED_KEY_PREFIX, SESSION_KEY_PREFIX)) {
+                try (Cursor<String> keys = scan(prefix)) {
+                    while (keys.hasNext()) {
+                        recordRevoked(prefix, keys.next().substring(prefix.length()));
+                        tokens++;
+                    }
+                }
+            }
+            int users = 0;
+            List<String> batch = new ArrayList<>(SCAN_BATCH);
+            try (Cursor<String> keys = scan(EPOCH_KEY_PREFIX)) {
+                while (keys.hasNext()) {
+                    batch.add(keys.next());
+                    if (batch.size() == SCAN_BATCH || !keys.hasNext()) {
+                        users += loadEpochs(batch);
+                        batch.clear();
+                    }
+                }
+            }
+            log.debug("Revocaciones resincronizadas: {} tokens/sesiones, {} usuarios", tokens, users);
+        } catch (Exception e) {
+            log.error("❌ Error al resincronizar las revocaciones: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Abre una generación nueva del filtro y descarta la anterior, cuyos tokens ya expiraron.
+     */
+    @Scheduled(initialDelayString = "${jwt.access-token-expiration}", fixedDelayString = "${jwt.access-token-expiration}")
+    public void rotateFilter() {
+        previous = current;
+        current = BloomFilter.create(expectedRevocations, falsePositiveRate);
+    }
+
+    public String channel() {
+        return channel;
+    }
+
+    private int loadEpochs(List<String> keys) {
+        List<String> values = redisTemplate.opsForValue().multiGet(keys);
+        int loaded = 0;
+        for (int i = 0; values != null && i < keys.size(); i++) {
+            if (values.get(i) != null) {
+                recordEpoch(Long.valueOf(keys.get(i).substring(EPOCH_KEY_PREFIX.length())), Long.parseLong(values.get(i)));
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    private Cursor<String> scan(String prefix) {
+        return redisTemplate.scan(ScanOptions.scanOptions().match(prefix + "*").count(SCAN_BATCH).build());
+    }
+
+    private boolean mightBeRevoked(String prefix, String id) {
+        return id != null && (current.mightContain(prefix + id) || previous.mightContain(prefix + id));
+    }
+
+    // El prefijo separa jti y sesiones dentro del mismo filtro
+    private void recordRevoked(String prefix, String id) {
+        current.put(prefix + id);
+    }
+
+    private void recordEpoch(Long userId, long epoch) {
+        epochs.asMap().merge(userId, epoch, Math::max);
+    }
+
+    private static Duration remaining(long expiresAtMillis) {
+        long millis = expiresAtMillis - System.currentTimeMillis();
+        return Duration.ofMillis(Math.max(0, millis));
+    }
+}
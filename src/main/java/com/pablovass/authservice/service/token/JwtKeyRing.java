@@ -0,0 +1,259 @@
+package com.pablovass.authservice.service.token;
+
+import io.jsonwebtoken.Header;
+import io.jsonwebtoken.Locator;
+import io.jsonwebtoken.ProtectedHeader;
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Keyring de claves asimétricas para firmar JWT.
+ * Las claves se comparten entre nodos a través del hash de Redis {@code jwt:keyring}; un único
+ * nodo (con lock) genera la siguiente clave antes de que la activa caduque, de modo que se publica
+ * en el JWKS con antelación ({@code publish-lead}) y los consumidores la tienen cacheada al activarse.
+ * Las claves privadas se guardan cifradas con {@code jwt.keyring.encryption-key} (AES-GCM, 256 bits en
+ * base64, inyectada desde el gestor de secretos): leer Redis no basta para firmar tokens. Las entradas
+ * que no se pueden descifrar (otra clave de cifrado, manipuladas o del formato anterior sin cifrar)
+ * se ignoran.
+ * Los tokens HS256 heredados (sin {@code kid}) sólo se aceptan con {@code jwt.signing.accept-legacy-hs256}
+ * y durante la vida de un access token desde el corte, que el primer nodo registra en
+ * {@code jwt:keyring:legacy-cutover}: después, el secreto compartido ya no sirve para emitir tokens válidos.
+ */
+@Slf4j
+@Service
+public class JwtKeyRing implements Locator<Key> {
+
+    private static final String KEYRING_KEY = "jwt:keyring";
+    private static final String LOCK_KEY = "jwt:keyring:lock";
+    private static final String LEGACY_CUTOVER_KEY = "jwt:keyring:legacy-cutover";
+    private static final RedisScript<Long> RELEASE_LOCK_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/redis/release_lock.lua"), Long.class);
+    private static final Duration LOCK_TTL = Duration.ofSeconds(30);
+    private static final Duration MIN_RELOAD_INTERVAL = Duration.ofSeconds(1);
+    private static final int STARTUP_ATTEMPTS = 10;
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @Value("${jwt.secret}")
+    private String secret;
+
+    @Value("${jwt.access-token-expiration}")
+    private Long accessTokenExpiration;
+
+    @Value("${jwt.signing.algorithm:ES256}")
+    private String algorithm;
+
+    @Value("${jwt.signing.accept-legacy-hs256:false}")
+    private boolean acceptLegacyHs256;
+
+    @Value("${jwt.keyring.rotation-interval:86400000}")
+    private Long rotationInterval;
+
+    @Value("${jwt.keyring.publish-lead:900000}")
+    private Long publishLead;
+
+    @Value("${jwt.keyring.encryption-key}")
+    private String encryptionKey;
+
+    private volatile Map<String, JwtSigningKey> keys = Map.of();
+    private volatile Instant lastReload = Instant.EPOCH;
+    private Instant legacyAcceptedUntil = Instant.EPOCH;
+    private SecretKey legacyKey;
+    private SecretKey keyEncryptionKey;
+
+    public JwtKeyRing(RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @PostConstruct
+    void init() throws InterruptedException {
+        this.legacyKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.keyEncryptionKey = keyEncryptionKey(encryptionKey);
+        if (acceptLegacyHs256) {
+            this.legacyAcceptedUntil = legacyCutover().plusMillis(accessTokenExpiration);
+            log.warn("⚠️ Se aceptan tokens HS256 heredados hasta {}", legacyAcceptedUntil);
+        }
+        for (int attempt = 0; attempt < STARTUP_ATTEMPTS; attempt++) {
+            reload();
+            rotateIfNeeded();
+            if (findSigningKey(Instant.now()).isPresent()) {
+                return;
+            }
+            // Otro nodo tiene el lock de rotación: esperar a que publique la clave
+            Thread.sleep(LOCK_TTL.toMillis() / STARTUP_ATTEMPTS);
+        }
+        throw new IllegalStateException("No hay clave de firma JWT disponible en el keyring");
+    }
+
+    /**
+     * Sincroniza el keyring con Redis y genera la siguiente clave si hace falta.
+     */
+    @Scheduled(fixedDelayString = "${jwt.keyring.refresh-interval:60000}")
+    public void refresh() {
+        try {
+            reload();
+            rotateIfNeeded();
+        } catch (Exception e) {
+            log.error("❌ Error al refrescar el keyring JWT: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Devuelve la clave con la que se firman los tokens nuevos.
+     */
+    public JwtSigningKey signingKey() {
+        return findSigningKey(Instant.now())
+                .orElseThrow(() -> new IllegalStateException("No hay clave de firma JWT activa"));
+    }
+
+    /**
+     * Claves públicas vigentes (incluidas las pre-publicadas y las que aún verifican tokens emitidos).
+     */
+    public List<JwtSigningKey> publishedKeys() {
+        Instant now = Instant.now();
+        return keys.values().stream()
+                .filter(key -> !key.isRetired(now))
+                .sorted(Comparator.comparing(JwtSigningKey::activatesAt))
+                .toList();
+    }
+
+    /**
+     * Localiza la clave de verificación por el {@code kid} del header.
+     * Tokens sin {@code kid} se consideran HS256 heredados y sólo se aceptan dentro de la ventana de corte.
+     */
+    @Override
+    public Key locate(Header header) {
+        String kid = header instanceof ProtectedHeader protectedHeader ? protectedHeader.getKeyId() : null;
+        if (kid == null) {
+            return Instant.now().isBefore(legacyAcceptedUntil) ? legacyKey : null;
+        }
+        JwtSigningKey key = keys.get(kid);
+        if (key == null && Instant.now().isAfter(lastReload.plus(MIN_RELOAD_INTERVAL))) {
+            // Puede que otro nodo acabe de rotar: recargar una vez (acotado para no amplificar kids inventados)
+            reload();
+            key = keys.get(kid);
+        }
+        return key != null && !key.isRetired(Instant.now()) ? key.publicKey() : null;
+    }
+
+    private Optional<JwtSigningKey> findSigningKey(Instant now) {
+        Instant lastTokenExpiry = now.plusMillis(accessTokenExpiration);
+        return keys.values().stream()
+                .filter(key -> algorithm.equals(key.algorithm()))
+                .filter(key -> key.canSign(now) && lastTokenExpiry.isBefore(key.retiresAt()))
+                .max(Comparator.comparing(JwtSigningKey::activatesAt));
+    }
+
+    private void reload() {
+        lastReload = Instant.now();
+        Map<Object, Object> stored = redisTemplate.opsForHash().entries(KEYRING_KEY);
+        Map<String, JwtSigningKey> loaded = new HashMap<>();
+        stored.forEach((kid, value) -> {
+            try {
+                loaded.put(kid.toString(), JwtSigningKey.deserialize(kid.toString(), value.toString(), keyEncryptionKey));
+            } catch (IllegalStateException e) {
+                log.warn("⚠️ Clave JWT {} ignorada: no se puede descifrar con la clave de cifrado del keyring", kid);
+            }
+        });
+        this.keys = Map.copyOf(loaded);
+    }
+
+    private void rotateIfNeeded() {
+        Instant now = Instant.now();
+        Optional<JwtSigningKey> newest = keys.values().stream()
+                .filter(key -> algorithm.equals(key.algorithm()))
+                .max(Comparator.comparing(JwtSigningKey::activatesAt));
+
+        Instant nextActivation;
+        if (newest.isEmpty() || newest.get().isRetired(now)) {
+            nextActivation = now;
+        } else {
+            Instant signingEnd = newest.get().activatesAt().plusMillis(rotationInterval);
+            if (now.isBefore(signingEnd.minusMillis(publishLead))) {
+                purgeRetired(now);
+                return;
+            }
+            nextActivation = signingEnd.isAfter(now) ? signingEnd : now;
+        }
+
+        Boolean locked = redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, instanceId, LOCK_TTL);
+        if (!Boolean.TRUE.equals(locked)) {
+            return;
+        }
+        try {
+            JwtSigningKey next = JwtSigningKey.generate(
+                algorithm,
+                now,
+                nextActivation,
+                nextActivation.plusMillis(rotationInterval + accessTokenExpiration)
+            );
+            redisTemplate.opsForHash().put(KEYRING_KEY, next.kid(), next.serialize(keyEncryptionKey));
+            Map<String, JwtSigningKey> updated = new HashMap<>(keys);
+            updated.put(next.kid(), next);
+            this.keys = Map.copyOf(updated);
+            purgeRetired(now);
+            log.info("🔑 Nueva clave JWT {} ({}) activa desde {}", next.kid(), algorithm, nextActivation);
+        } finally {
+            releaseLock();
+        }
+    }
+
+    private void releaseLock() {
+        try {
+            redisTemplate.execute(RELEASE_LOCK_SCRIPT, List.of(LOCK_KEY), instanceId);
+        } catch (Exception e) {
+            // El lock caduca solo con su TTL
+            log.warn("⚠️ No se pudo liberar el lock del keyring: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Instante en que el servicio dejó de emitir HS256, compartido por todos los nodos: el primero lo fija.
+     */
+    private Instant legacyCutover() {
+        String now = String.valueOf(System.currentTimeMillis());
+        redisTemplate.opsForValue().setIfAbsent(LEGACY_CUTOVER_KEY, now);
+        String stored = redisTemplate.opsForValue().get(LEGACY_CUTOVER_KEY);
+        return Instant.ofEpochMilli(Long.parseLong(stored != null ? stored : now));
+    }
+
+    private static SecretKey keyEncryptionKey(String base64) {
+        byte[] key = Base64.getDecoder().decode(base64);
+        if (key.length != 32) {
+            throw new IllegalStateException("jwt.keyring.encryption-key debe ser una clave AES de 256 bits en base64");
+        }
+        return new SecretKeySpec(key, "AES");
+    }
+
+    private void purgeRetired(Instant now) {
+        Object[] retired = keys.values().stream()
+                .filter(key -> key.isRetired(now))
+                .map(JwtSigningKey::kid)
+                .toArray();
+        if (retired.length > 0) {
+            redisTemplate.opsForHash().delete(KEYRING_KEY, retired);
+        }
+    }
+}
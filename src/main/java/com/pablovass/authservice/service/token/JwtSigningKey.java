@@ -0,0 +1,195 @@
+package com.pablovass.authservice.service.token;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Clave asimétrica del keyring de firma de JWT.
+ * Ciclo de vida: se publica en el JWKS al crearse, firma desde {@code activatesAt}
+ * y se mantiene para verificación hasta {@code retiresAt}.
+ * En Redis la clave privada se guarda cifrada con AES-GCM bajo la clave de cifrado del keyring
+ * ({@code jwt.keyring.encryption-key}); el resto de campos va como dato autenticado, así que
+ * tampoco se puede sustituir la clave pública ni alargar la vigencia de una entrada.
+ */
+public record JwtSigningKey(
+    String kid,
+    String algorithm,
+    PrivateKey privateKey,
+    PublicKey publicKey,
+    Instant createdAt,
+    Instant activatesAt,
+    Instant retiresAt
+) {
+
+    public static final String ES256 = "ES256";
+    public static final String EDDSA = "EdDSA";
+
+    private static final String SEPARATOR = "|";
+    private static final String KEY_CIPHER = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * Genera un nuevo par de claves para el algoritmo indicado.
+     */
+    public static JwtSigningKey generate(String algorithm, Instant createdAt, Instant activatesAt, Instant retiresAt) {
+        try {
+            KeyPair keyPair = switch (algorithm) {
+                case ES256 -> {
+                    KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+                    generator.initialize(new ECGenParameterSpec("secp256r1"));
+                    yield generator.generateKeyPair();
+                }
+                case EDDSA -> KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+                default -> throw new IllegalArgumentException("Algoritmo de firma no soportado: " + algorithm);
+            };
+            return new JwtSigningKey(
+                UUID.randomUUID().toString(),
+                algorithm,
+                keyPair.getPrivate(),
+                keyPair.getPublic(),
+                createdAt,
+                activatesAt,
+                retiresAt
+            );
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo generar la clave " + algorithm, e);
+        }
+    }
+
+    /**
+     * Reconstruye la clave desde su representación almacenada en Redis.
+     *
+     * @throws IllegalStateException si la entrada está corrupta, se manipuló o se cifró con otra clave
+     */
+    public static JwtSigningKey deserialize(String kid, String value, SecretKey keyEncryptionKey) {
+        String[] parts = value.split("\\" + SEPARATOR);
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance(parts[4]);
+            byte[] pkcs8 = decrypt(keyEncryptionKey, Base64.getDecoder().decode(parts[6]), associatedData(kid, parts));
+            return new JwtSigningKey(
+                kid,
+                parts[0],
+                keyFactory.generatePrivate(new PKCS8EncodedKeySpec(pkcs8)),
+                keyFactory.generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(parts[5]))),
+                Instant.ofEpochMilli(Long.parseLong(parts[1])),
+                Instant.ofEpochMilli(Long.parseLong(parts[2])),
+                Instant.ofEpochMilli(Long.parseLong(parts[3]))
+            );
+        } catch (GeneralSecurityException | RuntimeException e) {
+            throw new IllegalStateException("Clave JWT corrupta en el keyring: " + kid, e);
+        }
+    }
+
+    /**
+     * Serializa la clave como {@code alg|created|activates|retires|keyAlg|x509|iv+pkcs8 cifrado}.
+     */
+    public String serialize(SecretKey keyEncryptionKey) {
+        String[] parts = {
+            algorithm,
+            String.valueOf(createdAt.toEpochMilli()),
+            String.valueOf(activatesAt.toEpochMilli()),
+            String.valueOf(retiresAt.toEpochMilli()),
+            privateKey.getAlgorithm(),
+            Base64.getEncoder().encodeToString(publicKey.getEncoded())
+        };
+        byte[] encrypted = encrypt(keyEncryptionKey, privateKey.getEncoded(), associatedData(kid, parts));
+        return String.join(SEPARATOR, parts) + SEPARATOR + Base64.getEncoder().encodeToString(encrypted);
+    }
+
+    /**
+     * Representación JWK (RFC 7517/8037) de la clave pública para el JWKS.
+     */
+    public Map<String, Object> toPublicJwk() {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        if (publicKey instanceof ECPublicKey ecKey) {
+            jwk.put("kty", "EC");
+            jwk.put("crv", "P-256");
+            jwk.put("x", encoder.encodeToString(toFixedLength(ecKey.getW().getAffineX().toByteArray(), 32)));
+            jwk.put("y", encoder.encodeToString(toFixedLength(ecKey.getW().getAffineY().toByteArray(), 32)));
+        } else {
+            // X.509 SubjectPublicKeyInfo de Ed25519: 12 bytes de cabecera + 32 bytes de clave
+            byte[] encoded = publicKey.getEncoded();
+            jwk.put("kty", "OKP");
+            jwk.put("crv", "Ed25519");
+            jwk.put("x", encoder.encodeToString(Arrays.copyOfRange(encoded, encoded.length - 32, encoded.length)));
+        }
+        jwk.put("kid", kid);
+        jwk.put("use", "sig");
+        jwk.put("alg", algorithm);
+        return jwk;
+    }
+
+    public SignatureAlgorithm signatureAlgorithm() {
+        return EDDSA.equals(algorithm) ? Jwts.SIG.EdDSA : Jwts.SIG.ES256;
+    }
+
+    public boolean canSign(Instant now) {
+        return !now.isBefore(activatesAt) && now.isBefore(retiresAt);
+    }
+
+    public boolean isRetired(Instant now) {
+        return !now.isBefore(retiresAt);
+    }
+
+    private static byte[] associatedData(String kid, String[] parts) {
+        return (kid + SEPARATOR + String.join(SEPARATOR, Arrays.copyOf(parts, 6))).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encrypt(SecretKey keyEncryptionKey, byte[] plaintext, byte[] associatedData) {
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            RANDOM.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance(KEY_CIPHER);
+            cipher.init(Cipher.ENCRYPT_MODE, keyEncryptionKey, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(associatedData);
+            byte[] ciphertext = cipher.doFinal(plaintext);
+            return ByteBuffer.allocate(IV_LENGTH + ciphertext.length).put(iv).put(ciphertext).array();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo cifrar la clave JWT", e);
+        }
+    }
+
+    private static byte[] decrypt(SecretKey keyEncryptionKey, byte[] encrypted, byte[] associatedData)
+            throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance(KEY_CIPHER);
+        cipher.init(Cipher.DECRYPT_MODE, keyEncryptionKey, new GCMParameterSpec(TAG_BITS, encrypted, 0, IV_LENGTH));
+        cipher.updateAAD(associatedData);
+        return cipher.doFinal(encrypted, IV_LENGTH, encrypted.length - IV_LENGTH);
+    }
+
+    private static byte[] toFixedLength(byte[] unsigned, int length) {
+        if (unsigned.length == length) {
+            return unsigned;
+        }
+        byte[] fixed = new byte[length];
+        int copy = Math.min(unsigned.length, length);
+        System.arraycopy(unsigned, unsigned.length - copy, fixed, length - copy, copy);
+        return fixed;
+    }
+}
@@ -0,0 +1,42 @@
+package com.pablovass.authservice.service.token;
+
+/**
+ * Resultado de rotar un refresh token.
+ * En {@link Status#GRACE} se devuelve la respuesta ya emitida para el token recién rotado.
+ * {@code sessionId} identifica la sesión (dispositivo) del token.
+ */
+public record RefreshRotation(
+    Status status,
+    Long userId,
+    String sessionId,
+    String refreshToken,
+    String accessToken
+) {
+
+    public enum Status {
+        /** Rotado ahora: hay que emitir el access token y completar la rotación. */
+        ROTATED,
+        /** Duplicado dentro de la ventana de gracia: reutilizar la respuesta cacheada. */
+        GRACE,
+        /** Token ya rotado reutilizado fuera de la ventana: la sesión fue revocada. */
+        REUSED,
+        /** Token desconocido o expirado. */
+        INVALID
+    }
+
+    public static RefreshRotation rotated(Long userId, String sessionId, String refreshToken) {
+        return new RefreshRotation(Status.ROTATED, userId, sessionId, refreshToken, null);
+    }
+
+    public static RefreshRotation grace(String refreshToken, String accessToken) {
+        return new RefreshRotation(Status.GRACE, null, null, refreshToken, accessToken);
+    }
+
+    public static RefreshRotation reused(Long userId, String sessionId) {
+        return new RefreshRotation(Status.REUSED, userId, sessionId, null, null);
+    }
+
+    public static RefreshRotation invalid() {
+        return new RefreshRotation(Status.INVALID, null, null, null, null);
+    }
+}
@@ -0,0 +1,67 @@
+package com.pablovass.authservice.service.token;
+
+import java.time.Instant;
+
+/**
+ * Sesión (dispositivo) de un usuario: una entrada del hash {@code sessions:{userId}} de Redis.
+ * La entrada se guarda como {@code hashActual|hashAnterior|creada|últimoUso|expira|ip|agente}
+ * (instantes en ms); el agente va al final porque es el único campo que puede contener {@code |}.
+ */
+public record RefreshSession(
+    String id,
+    Instant createdAt,
+    Instant lastUsedAt,
+    Instant expiresAt,
+    String ipAddress,
+    String userAgent
+) {
+
+    private static final String SEPARATOR = "|";
+    private static final int FIELDS = 7;
+    private static final int MAX_USER_AGENT_LENGTH = 256;
+
+    /**
+     * Reconstruye la sesión desde su entrada en el hash, o null si está corrupta.
+     */
+    public static RefreshSession parse(String id, String entry) {
+        String[] parts = entry.split("\\" + SEPARATOR, FIELDS);
+        if (parts.length != FIELDS) {
+            return null;
+        }
+        try {
+            return new RefreshSession(
+                id,
+                Instant.ofEpochMilli(Long.parseLong(parts[2])),
+                Instant.ofEpochMilli(Long.parseLong(parts[3])),
+                Instant.ofEpochMilli(Long.parseLong(parts[4])),
+                parts[5].isEmpty() ? null : parts[5],
+                parts[6].isEmpty() ? null : parts[6]
+            );
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Entrada de una sesión recién creada (sin secreto anterior).
+     */
+    public static String newEntry(String secretHash, Instant now, Instant expiresAt, String ipAddress, String userAgent) {
+        return String.join(SEPARATOR,
+            secretHash,
+            "",
+            String.valueOf(now.toEpochMilli()),
+            String.valueOf(now.toEpochMilli()),
+            String.valueOf(expiresAt.toEpochMilli()),
+            ipAddress != null ? ipAddress.replace(SEPARATOR, "") : "",
+            userAgent != null ? truncate(userAgent) : ""
+        );
+    }
+
+    public boolean isExpired(Instant now) {
+        return !now.isBefore(expiresAt);
+    }
+
+    private static String truncate(String userAgent) {
+        return userAgent.length() > MAX_USER_AGENT_LENGTH ? userAgent.substring(0, MAX_USER_AGENT_LENGTH) : userAgent;
+    }
+}
@@ -0,0 +1,80 @@
+package com.pablovass.authservice.service.token;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Refresh token con formato {@code {userId}.{sessionId}.{secreto}}.
+ * El userId y la sesión permiten llegar a la entrada del hash de sesiones del usuario sin índices
+ * inversos; en Redis sólo se guarda el SHA-256 del secreto.
+ */
+public record RefreshToken(
+    Long userId,
+    String sessionId,
+    String secret
+) {
+
+    private static final String SEPARATOR = ".";
+    private static final int SECRET_BYTES = 32;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * Emite el token de una sesión nueva.
+     */
+    public static RefreshToken newSession(Long userId) {
+        return new RefreshToken(userId, UUID.randomUUID().toString(), newSecret());
+    }
+
+    /**
+     * Parsea el token presentado por el cliente.
+     *
+     * @return el token, o null si no tiene el formato esperado (p. ej. tokens anteriores a las sesiones)
+     */
+    public static RefreshToken parse(String value) {
+        String[] parts = value.split("\\" + SEPARATOR);
+        if (parts.length != 3 || parts[1].isEmpty() || parts[2].isEmpty()) {
+            return null;
+        }
+        try {
+            return new RefreshToken(Long.valueOf(parts[0]), parts[1], parts[2]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Siguiente token de la misma sesión (rotación).
+     */
+    public RefreshToken rotate() {
+        return new RefreshToken(userId, sessionId, newSecret());
+    }
+
+    public String secretHash() {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible en la JVM", e);
+        }
+    }
+
+    public String value() {
+        return userId + SEPARATOR + sessionId + SEPARATOR + secret;
+    }
+
+    @Override
+    public String toString() {
+        // No exponer el secreto en logs
+        return "RefreshToken[userId=" + userId + ", sessionId=" + sessionId + "]";
+    }
+
+    private static String newSecret() {
+        byte[] bytes = new byte[SECRET_BYTES];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
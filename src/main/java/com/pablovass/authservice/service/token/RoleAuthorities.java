@@ -0,0 +1,57 @@
+package com.pablovass.authservice.service.token;
+
+import com.pablovass.authservice.domain.model.Permission;
+import com.pablovass.authservice.domain.model.Role;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tabla precalculada de authorities por máscara de roles.
+ * Hay pocas combinaciones posibles, así que se construyen todas al cargar la clase con instancias
+ * de {@link GrantedAuthority} internadas: el filtro JWT no crea objetos por petición y las
+ * comprobaciones de {@code @PreAuthorize} trabajan con los roles y permisos reales del token.
+ */
+public final class RoleAuthorities {
+
+    private static final int KNOWN_BITS = (1 << Role.values().length) - 1;
+    private static final List<List<GrantedAuthority>> BY_MASK = buildTable();
+
+    private RoleAuthorities() {
+    }
+
+    /**
+     * Authorities (roles y permisos) de la máscara; los bits desconocidos se ignoran.
+     */
+    public static List<GrantedAuthority> of(int mask) {
+        return BY_MASK.get(mask & KNOWN_BITS);
+    }
+
+    private static List<List<GrantedAuthority>> buildTable() {
+        Map<Role, GrantedAuthority> roles = new EnumMap<>(Role.class);
+        for (Role role : Role.values()) {
+            roles.put(role, new SimpleGrantedAuthority(role.authority()));
+        }
+        Map<Permission, GrantedAuthority> permissions = new EnumMap<>(Permission.class);
+        for (Permission permission : Permission.values()) {
+            permissions.put(permission, new SimpleGrantedAuthority(permission.authority()));
+        }
+
+        List<List<GrantedAuthority>> table = new ArrayList<>(KNOWN_BITS + 1);
+        for (int mask = 0; mask <= KNOWN_BITS; mask++) {
+            Set<GrantedAuthority> authorities = new LinkedHashSet<>();
+            for (Role role : Role.fromMask(mask)) {
+                authorities.add(roles.get(role));
+                role.permissions().forEach(permission -> authorities.add(permissions.get(permission)));
+            }
+            table.add(List.copyOf(authorities));
+        }
+        return List.copyOf(table);
+    }
+}
@@ -0,0 +1,170 @@
+package com.pablovass.authservice.service.token;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.pablovass.authservice.controller.dto.TokenIntrospection;
+import com.pablovass.authservice.service.JwtService;
+import com.pablovass.authservice.service.revocation.TokenRevocationService;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Introspección de access tokens para gateways y servicios internos: misma verificación que
+ * {@code JwtAuthenticationFilter} (firma y expiración con la caché de {@link JwtService}, revocación con
+ * el filtro local de {@link TokenRevocationService}) para muchos tokens en una sola petición.
+ * Acepta un lote JSON o un stream NDJSON: una línea {@code {"token": "..."}} (o un string JSON) por token
+ * y una línea de resultado por cada una, en el mismo orden. El stream se vacía cada vez que el cliente
+ * no tiene más líneas pendientes, así un gateway puede mantener la conexión abierta e ir enviando tokens.
+ * Cuenta el resultado de cada token en {@code auth.introspect{outcome}} y el tamaño de cada lote
+ * en {@code auth.introspect.batch}.
+ */
+@Slf4j
+@Service
+public class TokenIntrospectionService {
+
+    private static final String METRIC = "auth.introspect";
+    private static final String EXPIRED = "expired";
+    private static final String REVOKED = "revoked";
+    private static final String BAD_SIGNATURE = "bad_signature";
+    private static final String MALFORMED = "malformed";
+    private static final String INVALID = "invalid";
+
+    private static final JsonMapper JSON = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private final JwtService jwtService;
+    private final TokenRevocationService tokenRevocationService;
+    private final Counter activeTokens;
+    private final Map<String, TokenIntrospection> inactive = new HashMap<>();
+    private final Map<String, Counter> inactiveTokens = new HashMap<>();
+    private final DistributionSummary batchSizes;
+
+    public TokenIntrospectionService(
+            JwtService jwtService,
+            TokenRevocationService tokenRevocationService,
+            MeterRegistry meterRegistry
+    ) {
+        this.jwtService = jwtService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.activeTokens = meterRegistry.counter(METRIC, "outcome", TokenIntrospection.ACTIVE);
+        for (String status : List.of(EXPIRED, REVOKED, BAD_SIGNATURE, MALFORMED, INVALID)) {
+            inactive.put(status, TokenIntrospection.inactive(status));
+            inactiveTokens.put(status, meterRegistry.counter(METRIC, "outcome", status));
+        }
+        this.batchSizes = DistributionSummary.builder(METRIC + ".batch")
+                .baseUnit("tokens")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Verifica un lote de tokens.
+     *
+     * @return Un resultado por token, en el mismo orden
+     */
+    public List<TokenIntrospection> introspect(List<String> tokens) {
+        batchSizes.record(tokens.size());
+        return tokens.stream().map(this::introspect).toList();
+    }
+
+    /**
+     * Verifica los tokens de un stream NDJSON y escribe un resultado NDJSON por línea no vacía.
+     * Las líneas que no son JSON o no traen {@code token} se responden como {@code malformed}.
+     *
+     * @return Número de tokens verificados
+     */
+    public long introspect(InputStream input, OutputStream output) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        OutputStream out = new BufferedOutputStream(output);
+        long count = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            out.write(JSON.writeValueAsBytes(introspect(tokenOf(line))));
+            out.write('\n');
+            count++;
+            // Vaciar cuando el cliente no ha enviado más líneas: agrupa escrituras sin retener respuestas
+            if (!reader.ready()) {
+                out.flush();
+            }
+        }
+        out.flush();
+        batchSizes.record(count);
+        return count;
+    }
+
+    /**
+     * Verifica un token: firma, expiración y revocación.
+     */
+    public TokenIntrospection introspect(String token) {
+        if (token == null || token.isBlank()) {
+            return inactive(MALFORMED);
+        }
+        try {
+            VerifiedToken verified = jwtService.verify(token);
+            if (verified.isExpired()) {
+                return inactive(EXPIRED);
+            }
+            if (tokenRevocationService.isRevoked(verified)) {
+                return inactive(REVOKED);
+            }
+            activeTokens.increment();
+            return TokenIntrospection.active(verified, authorities(verified.roleMask()));
+        } catch (ExpiredJwtException e) {
+            return inactive(EXPIRED);
+        } catch (SignatureException e) {
+            return inactive(BAD_SIGNATURE);
+        } catch (MalformedJwtException e) {
+            return inactive(MALFORMED);
+        } catch (JwtException | IllegalArgumentException e) {
+            return inactive(INVALID);
+        } catch (Exception e) {
+            log.error("❌ Error al introspeccionar JWT: {}", e.getMessage());
+            return inactive(INVALID);
+        }
+    }
+
+    private TokenIntrospection inactive(String status) {
+        inactiveTokens.get(status).increment();
+        return inactive.get(status);
+    }
+
+    private static List<String> authorities(int roleMask) {
+        return RoleAuthorities.of(roleMask).stream().map(GrantedAuthority::getAuthority).toList();
+    }
+
+    private static String tokenOf(String line) {
+        try {
+            JsonNode node = JSON.readTree(line);
+            JsonNode token = node.isTextual() ? node : node.get("token");
+            return token != null && token.isTextual() ? token.asText() : null;
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+}
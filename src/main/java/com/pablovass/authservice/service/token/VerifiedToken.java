@@ -0,0 +1,54 @@
+package com.pablovass.authservice.service.token;
+
+import com.pablovass.authservice.domain.model.Role;
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * Resultado de parsear y verificar un access token una única vez.
+ * Es inmutable, por lo que puede compartirse entre peticiones desde la caché de verificación.
+ * {@code email} y {@code createdAt} sólo están presentes en tokens con perfil embebido.
+ * {@code roleMask} sale del claim {@code rm}; los tokens anteriores traen el rol en {@code role}.
+ * {@code tokenId} ({@code jti}), {@code sessionId} ({@code sid}) y {@code epoch} ({@code ep}, 0 si falta)
+ * se usan para la revocación.
+ */
+public record VerifiedToken(
+    Long userId,
+    String username,
+    int roleMask,
+    String email,
+    LocalDateTime createdAt,
+    Instant issuedAt,
+    Instant expiresAt,
+    String tokenId,
+    String sessionId,
+    long epoch
+) {
+
+    /**
+     * Construye el resultado a partir de los claims ya verificados por jjwt.
+     */
+    public static VerifiedToken from(Claims claims) {
+        String createdAt = claims.get("createdAt", String.class);
+        Integer roleMask = claims.get("rm", Integer.class);
+        Long epoch = claims.get("ep", Long.class);
+        return new VerifiedToken(
+            Long.parseLong(claims.getSubject()),
+            claims.get("username", String.class),
+            roleMask != null ? roleMask : Role.maskOf(claims.get("role", String.class)),
+            claims.get("email", String.class),
+            createdAt != null ? LocalDateTime.parse(createdAt) : null,
+            claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+            claims.getExpiration().toInstant(),
+            claims.getId(),
+            claims.get("sid", String.class),
+            epoch != null ? epoch : 0L
+        );
+    }
+
+    public boolean isExpired() {
+        return !expiresAt.isAfter(Instant.now());
+    }
+}
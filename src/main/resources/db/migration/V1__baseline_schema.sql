@@ -0,0 +1,31 @@
+-- Esquema base tal y como lo dejaba ddl-auto=update.
+-- Es idempotente para poder aplicarse sobre bases de datos creadas por Hibernate
+-- (spring.flyway.baseline-on-migrate con baseline-version=0).
+
+CREATE TABLE IF NOT EXISTS users (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email      VARCHAR(255) NOT NULL,
+    username   VARCHAR(255) NOT NULL,
+    password   VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS user_roles (
+    user_id BIGINT NOT NULL REFERENCES users (id),
+    role    VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    topic          VARCHAR(255) NOT NULL,
+    aggregate_id   VARCHAR(255),
+    event_type     VARCHAR(255) NOT NULL,
+    content_type   VARCHAR(255),
+    schema_version INTEGER,
+    payload        BYTEA        NOT NULL,
+    created_at     TIMESTAMP(6),
+    sent_at        TIMESTAMP(6),
+    attempts       INTEGER      NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_outbox_events_pending ON outbox_events (sent_at, id);
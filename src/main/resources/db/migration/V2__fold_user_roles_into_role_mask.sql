@@ -0,0 +1,22 @@
+-- Los roles pasan de la tabla user_roles a la máscara de bits users.role_mask
+-- (USER = 1, ADMIN = 2, SERVICE = 4; ver Role). Un usuario sin roles queda como USER.
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS role_mask INTEGER NOT NULL DEFAULT 1;
+
+UPDATE users u
+SET role_mask = r.mask
+FROM (
+    SELECT user_id,
+           BIT_OR(CASE role
+                      WHEN 'ROLE_USER' THEN 1
+                      WHEN 'ROLE_ADMIN' THEN 2
+                      WHEN 'ROLE_SERVICE' THEN 4
+                      ELSE 0
+                  END) AS mask
+    FROM user_roles
+    GROUP BY user_id
+) r
+WHERE r.user_id = u.id
+  AND r.mask <> 0;
+
+DROP TABLE user_roles;
@@ -0,0 +1,29 @@
+-- Unicidad de email y username sin distinguir mayúsculas, sobre lower(...).
+-- Los nombres se mantienen (uk_users_email / uk_users_username) porque el alta los usa
+-- para traducir la violación a un 409. Si hay duplicados que sólo difieren en mayúsculas
+-- la migración falla y deben resolverse a mano antes de desplegar.
+
+ALTER TABLE users DROP CONSTRAINT IF EXISTS uk_users_email;
+ALTER TABLE users DROP CONSTRAINT IF EXISTS uk_users_username;
+
+-- Restricciones únicas sin nombre creadas por ddl-auto en versiones anteriores
+DO $$
+DECLARE
+    legacy RECORD;
+BEGIN
+    FOR legacy IN
+        SELECT c.conname
+        FROM pg_constraint c
+        WHERE c.conrelid = 'users'::regclass
+          AND c.contype = 'u'
+    LOOP
+        EXECUTE format('ALTER TABLE users DROP CONSTRAINT %I', legacy.conname);
+    END LOOP;
+END $$;
+
+-- El login busca por lower(email) y sólo lee columnas incluidas en el índice:
+-- con el visibility map al día se resuelve con un index-only scan, sin tocar el heap.
+CREATE UNIQUE INDEX uk_users_email ON users (lower(email))
+    INCLUDE (id, password, email, username, role_mask, created_at);
+
+CREATE UNIQUE INDEX uk_users_username ON users (lower(username));
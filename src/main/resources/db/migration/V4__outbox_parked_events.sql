@@ -0,0 +1,8 @@
+-- Eventos del outbox que agotaron outbox.relay.max-attempts: quedan aparcados (dead letter) para
+-- revisión manual y el relay deja de seleccionarlos, así no bloquean la cabeza de la cola.
+
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS parked_at TIMESTAMP(6);
+
+-- El relay sólo lee pendientes no aparcados en orden de id
+DROP INDEX IF EXISTS idx_outbox_events_pending;
+CREATE INDEX idx_outbox_events_pending ON outbox_events (id) WHERE sent_at IS NULL AND parked_at IS NULL;
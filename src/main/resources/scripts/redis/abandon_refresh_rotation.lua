@@ -0,0 +1,20 @@
+-- Deshace una rotación cuya respuesta no llegó a emitirse (fallo o timeout tras 'ROTATED').
+-- Sólo actúa si la respuesta sigue PENDING para el secreto presentado: vuelve a dejarlo como vigente
+-- (el cliente puede reintentar con él) y borra la marca para que no cuente como reutilización.
+-- KEYS[1] = sessions:{userId}   KEYS[2] = refresh_rotated:{userId}:{sessionId}
+-- ARGV[1] = sessionId   ARGV[2] = hash del secreto presentado
+-- Devuelve 1 si se restauró la sesión.
+if redis.call('GET', KEYS[2]) ~= ARGV[2] .. '|PENDING' then
+    return 0
+end
+redis.call('DEL', KEYS[2])
+local entry = redis.call('HGET', KEYS[1], ARGV[1])
+if not entry then
+    return 0
+end
+local _, previous, rest = string.match(entry, '^([^|]*)|([^|]*)|(.*)$')
+if previous ~= ARGV[2] then
+    return 0
+end
+redis.call('HSET', KEYS[1], ARGV[1], table.concat({ARGV[2], '', rest}, '|'))
+return 1
@@ -0,0 +1,29 @@
+-- Crea una sesión en el hash de sesiones del usuario en un solo round trip y de forma atómica.
+-- Descarta las sesiones expiradas y, si se alcanza el máximo, las usadas hace más tiempo,
+-- de modo que el hash nunca supera el máximo de sesiones por usuario.
+-- KEYS[1] = sessions:{userId}
+-- ARGV[1] = sessionId   ARGV[2] = entrada (hash|anterior|creada|último uso|expira|ip|agente)
+-- ARGV[3] = ahora en ms   ARGV[4] = TTL en ms   ARGV[5] = máximo de sesiones por usuario
+-- Devuelve el número de sesiones descartadas.
+local now = tonumber(ARGV[3])
+local max = tonumber(ARGV[5])
+local entries = redis.call('HGETALL', KEYS[1])
+local live = {}
+local removed = 0
+for i = 1, #entries, 2 do
+    local lastUsed, expiresAt = string.match(entries[i + 1], '^[^|]*|[^|]*|%d+|(%d+)|(%d+)|')
+    if not expiresAt or tonumber(expiresAt) <= now then
+        redis.call('HDEL', KEYS[1], entries[i])
+        removed = removed + 1
+    else
+        live[#live + 1] = {entries[i], tonumber(lastUsed)}
+    end
+end
+table.sort(live, function(a, b) return a[2] < b[2] end)
+for i = 1, #live - max + 1 do
+    redis.call('HDEL', KEYS[1], live[i][1])
+    removed = removed + 1
+end
+redis.call('HSET', KEYS[1], ARGV[1], ARGV[2])
+redis.call('PEXPIRE', KEYS[1], ARGV[4])
+return removed
@@ -0,0 +1,15 @@
+-- Registra un login fallido y bloquea la cuenta con un retardo exponencial a partir del umbral.
+-- KEYS[1] = login_failures:{email}   KEYS[2] = login_lock:{email}
+-- ARGV[1] = ventana de fallos en ms   ARGV[2] = umbral   ARGV[3] = retardo base en ms   ARGV[4] = retardo máximo en ms
+-- Devuelve el bloqueo aplicado en ms (0 si aún no se alcanza el umbral)
+local failures = redis.call('INCR', KEYS[1])
+redis.call('PEXPIRE', KEYS[1], ARGV[1])
+
+local excess = failures - tonumber(ARGV[2])
+if excess <= 0 then
+    return 0
+end
+
+local delay = math.floor(math.min(tonumber(ARGV[3]) * 2 ^ (excess - 1), tonumber(ARGV[4])))
+redis.call('SET', KEYS[2], '1', 'PX', delay)
+return delay
@@ -0,0 +1,29 @@
+-- Ventana deslizante de intentos de login para un único sujeto (IP o cuenta).
+-- La IP y la cuenta se evalúan en llamadas separadas: cada llamada sólo toca claves con el mismo
+-- hash tag, así que en Redis Cluster caen en el mismo slot (sin CROSSSLOT).
+-- KEYS[1] = login_rl:ip:{ip} o login_rl:email:{email}   KEYS[2] (opcional) = login_lock:{email}
+-- ARGV[1] = ahora en ms   ARGV[2] = ventana en ms   ARGV[3] = límite   ARGV[4] = identificador único del intento
+-- ARGV[5] = motivo si la ventana está llena ('ip' o 'email')
+-- Respuestas:
+--   {'ADMIT'}                          intento registrado en la ventana
+--   {'REJECT', retryAfterMs, motivo}   motivo: 'locked' o ARGV[5]
+local now = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+
+if KEYS[2] then
+    local locked = redis.call('PTTL', KEYS[2])
+    if locked > 0 then
+        return {'REJECT', tostring(locked), 'locked'}
+    end
+end
+
+redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now - window)
+if redis.call('ZCARD', KEYS[1]) >= tonumber(ARGV[3]) then
+    local oldest = redis.call('ZRANGE', KEYS[1], 0, 0, 'WITHSCORES')
+    local retry = math.max(1, tonumber(oldest[2]) + window - now)
+    return {'REJECT', tostring(retry), ARGV[5]}
+end
+
+redis.call('ZADD', KEYS[1], now, ARGV[4])
+redis.call('PEXPIRE', KEYS[1], window)
+return {'ADMIT'}
@@ -0,0 +1,8 @@
+-- Libera un lock sólo si sigue perteneciendo a quien lo tomó: si el TTL venció y otro nodo lo
+-- adquirió, un DEL sin comprobar borraría el lock ajeno.
+-- KEYS[1] = clave del lock   ARGV[1] = identificador del propietario
+-- Devuelve 1 si se liberó el lock.
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('DEL', KEYS[1])
+end
+return 0
@@ -0,0 +1,7 @@
+-- Revoca un access token (por su jti) o los de una sesión y lo anuncia al resto de nodos en un solo round trip.
+-- KEYS[1] = revoked_jti:{jti} o revoked_sid:{sessionId}
+-- ARGV[1] = TTL en ms (hasta el exp del token, o la vida de un access token para una sesión)
+-- ARGV[2] = canal de revocaciones
+-- ARGV[3] = mensaje a publicar
+redis.call('SET', KEYS[1], '1', 'PX', ARGV[1])
+return redis.call('PUBLISH', ARGV[2], ARGV[3])
@@ -0,0 +1,16 @@
+-- Sube la época de tokens de un usuario: los access tokens con una época anterior quedan revocados.
+-- La época es el instante del servidor Redis en ms (estrictamente creciente por usuario), así no
+-- se reinicia cuando la clave caduca.
+-- KEYS[1] = token_epoch:{userId}
+-- ARGV[1] = TTL en ms (duración de un access token)
+-- ARGV[2] = canal de revocaciones
+-- ARGV[3] = prefijo del mensaje a publicar ("epoch {userId}")
+local time = redis.call('TIME')
+local epoch = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+local current = tonumber(redis.call('GET', KEYS[1]) or '0')
+if epoch <= current then
+    epoch = current + 1
+end
+redis.call('SET', KEYS[1], string.format('%d', epoch), 'PX', ARGV[1])
+redis.call('PUBLISH', ARGV[2], ARGV[3] .. ' ' .. string.format('%d', epoch))
+return epoch
@@ -0,0 +1,6 @@
+-- Revoca una sesión (y su respuesta de rotación cacheada) en un solo round trip.
+-- KEYS[1] = sessions:{userId}   KEYS[2] = refresh_rotated:{userId}:{sessionId}
+-- ARGV[1] = sessionId
+-- Devuelve 1 si la sesión existía.
+redis.call('DEL', KEYS[2])
+return redis.call('HDEL', KEYS[1], ARGV[1])
@@ -0,0 +1,40 @@
+-- Rota el secreto de una sesión de forma atómica en un solo round trip.
+-- KEYS[1] = sessions:{userId}   KEYS[2] = refresh_rotated:{userId}:{sessionId}
+-- ARGV[1] = sessionId   ARGV[2] = hash del secreto presentado   ARGV[3] = hash del nuevo secreto
+-- ARGV[4] = ahora en ms   ARGV[5] = nueva expiración en ms   ARGV[6] = TTL en ms
+-- ARGV[7] = ventana de gracia en ms
+-- Respuestas:
+--   {'GRACE', respuesta}  el secreto se acaba de rotar: respuesta cacheada ('PENDING' si aún se calcula)
+--   {'ROTATED'}           rotado ahora; el llamante debe completar la respuesta en refresh_rotated
+--   {'REUSED'}            secreto anterior reutilizado fuera de la ventana: se revoca la sesión
+--   {'INVALID'}           sesión desconocida, expirada o secreto que no corresponde
+local entry = redis.call('HGET', KEYS[1], ARGV[1])
+if not entry then
+    return {'INVALID'}
+end
+local current, previous, createdAt, expiresAt, client =
+    string.match(entry, '^([^|]*)|([^|]*)|(%d+)|%d+|(%d+)|(.*)$')
+if not current or tonumber(expiresAt) <= tonumber(ARGV[4]) then
+    redis.call('HDEL', KEYS[1], ARGV[1])
+    return {'INVALID'}
+end
+
+if current == ARGV[2] then
+    redis.call('HSET', KEYS[1], ARGV[1], table.concat({ARGV[3], ARGV[2], createdAt, ARGV[4], ARGV[5], client}, '|'))
+    redis.call('PEXPIRE', KEYS[1], ARGV[6])
+    redis.call('SET', KEYS[2], ARGV[2] .. '|PENDING', 'PX', ARGV[7])
+    return {'ROTATED'}
+end
+
+if previous ~= '' and previous == ARGV[2] then
+    local prefix = ARGV[2] .. '|'
+    local cached = redis.call('GET', KEYS[2])
+    if cached and string.sub(cached, 1, #prefix) == prefix then
+        return {'GRACE', string.sub(cached, #prefix + 1)}
+    end
+    redis.call('HDEL', KEYS[1], ARGV[1])
+    redis.call('DEL', KEYS[2])
+    return {'REUSED'}
+end
+
+return {'INVALID'}
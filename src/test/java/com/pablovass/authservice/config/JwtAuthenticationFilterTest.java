@@ -0,0 +1,106 @@
+package com.pablovass.authservice.config;
+
+import com.pablovass.authservice.domain.model.Role;
+import com.pablovass.authservice.service.JwtService;
+import com.pablovass.authservice.service.revocation.TokenRevocationService;
+import com.pablovass.authservice.service.token.VerifiedToken;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Jwt Authentication Filter Unit Tests")
+class JwtAuthenticationFilterTest {
+
+    private JwtService jwtService;
+    private TokenRevocationService tokenRevocationService;
+    private SimpleMeterRegistry meterRegistry;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = mock(JwtService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        tokenRevocationService = mock(TokenRevocationService.class);
+        filter = new JwtAuthenticationFilter(jwtService, tokenRevocationService, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Should authenticate and count a valid token")
+    void doFilter_ShouldAuthenticate_WhenTokenIsValid() throws Exception {
+        when(jwtService.verify("good")).thenReturn(token("jti-good"));
+
+        filter.doFilter(bearer("good"), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals(1.0, outcome("valid"));
+    }
+
+    @Test
+    @DisplayName("Should count expired, malformed and badly signed tokens separately")
+    void doFilter_ShouldCountRejections_WhenTokenIsInvalid() throws Exception {
+        when(jwtService.verify("expired")).thenThrow(new ExpiredJwtException(null, null, "expired"));
+        when(jwtService.verify("malformed")).thenThrow(new MalformedJwtException("malformed"));
+        when(jwtService.verify("forged")).thenThrow(new SignatureException("forged"));
+
+        for (String token : new String[] {"expired", "malformed", "forged"}) {
+            filter.doFilter(bearer(token), new MockHttpServletResponse(), new MockFilterChain());
+        }
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals(1.0, outcome("expired"));
+        assertEquals(1.0, outcome("malformed"));
+        assertEquals(1.0, outcome("bad_signature"));
+        assertEquals(0.0, outcome("valid"));
+    }
+
+    @Test
+    @DisplayName("Should not authenticate a revoked token")
+    void doFilter_ShouldNotAuthenticate_WhenTokenIsRevoked() throws Exception {
+        VerifiedToken revoked = token("jti-revoked");
+        when(jwtService.verify("revoked")).thenReturn(revoked);
+        when(tokenRevocationService.isRevoked(revoked)).thenReturn(true);
+
+        filter.doFilter(bearer("revoked"), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals(1.0, outcome("revoked"));
+        assertEquals(0.0, outcome("valid"));
+    }
+
+    private static VerifiedToken token(String tokenId) {
+        return new VerifiedToken(1L, "pilot", Role.DEFAULT_MASK, null, null,
+            Instant.now(), Instant.now().plusSeconds(60), tokenId, null, 0L);
+    }
+
+    private MockHttpServletRequest bearer(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/auth/profile");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+
+    private double outcome(String outcome) {
+        return meterRegistry.get("auth.jwt.filter").tag("outcome", outcome).counter().count();
+    }
+}
@@ -0,0 +1,112 @@
+package com.pablovass.authservice.repository.routing;
+
+import com.pablovass.authservice.domain.model.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Enrutado real: Hibernate sobre el {@link LazyConnectionDataSourceProxy} con una réplica H2 vacía
+ * que aún no ha recibido el alta escrita en el primario.
+ */
+@DisplayName("Read Your Writes Routing Tests")
+class ReadYourWritesTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private EntityManagerFactory entityManagerFactory;
+    private EntityManager entityManager;
+    private TransactionTemplate readOnly;
+    private ReadYourWrites readYourWrites;
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = h2("primary");
+        DataSource replica = h2("replica");
+        // Mismo esquema en la réplica, sin filas
+        entityManagerFactory(replica).close();
+
+        meterRegistry = new SimpleMeterRegistry();
+        ReplicaRoutingDataSource routing =
+            new ReplicaRoutingDataSource(primary, Map.of("replica-0", replica), 1_000L, meterRegistry);
+        ReflectionTestUtils.setField(routing, "healthy", List.of("replica-0"));
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(routing);
+
+        entityManagerFactory = entityManagerFactory(dataSource);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readYourWrites = new ReadYourWrites(transactionManager, meterRegistry);
+
+        User user = User.builder().email("pilot@example.com").username("pilot").password("hash").build();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> entityManager.persist(user));
+        userId = user.getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @Test
+    @DisplayName("Should find on the primary a user the replica has not received yet")
+    void findOrPrimary_ShouldReadPrimary_WhenReplicaMissesTheRow() {
+        assertTrue(findUser().isEmpty());
+
+        Optional<User> found = readYourWrites.findOrPrimary(this::findUser);
+
+        assertEquals("pilot", found.orElseThrow().getUsername());
+        assertEquals(1.0, meterRegistry.get("datasource.routing.primary-fallbacks").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should not reuse the replica connection held by the surrounding EntityManager")
+    void findOrPrimary_ShouldReadPrimary_WhenEntityManagerHoldsReplicaConnection() {
+        // La transacción externa retiene su EntityManager (como haría open-in-view) con la conexión de réplica
+        Optional<User> found = readOnly.execute(status -> readYourWrites.findOrPrimary(
+            () -> Optional.ofNullable(entityManager.find(User.class, userId))));
+
+        assertEquals("pilot", found.orElseThrow().getUsername());
+    }
+
+    private Optional<User> findUser() {
+        return readOnly.execute(status -> Optional.ofNullable(entityManager.find(User.class, userId)));
+    }
+
+    private static DataSource h2(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    private static EntityManagerFactory entityManagerFactory(DataSource dataSource) {
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setPackagesToScan("com.pablovass.authservice.domain.model.entity");
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "create"));
+        factory.afterPropertiesSet();
+        return factory.getObject();
+    }
+}
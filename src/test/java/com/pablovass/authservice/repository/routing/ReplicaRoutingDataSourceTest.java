@@ -0,0 +1,107 @@
+package com.pablovass.authservice.repository.routing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Replica Routing DataSource Unit Tests")
+class ReplicaRoutingDataSourceTest {
+
+    private static final long MAX_LAG = 1_000L;
+
+    private DataSource primary;
+    private DataSource replica;
+    private Connection primaryConnection;
+    private Connection replicaConnection;
+    private ResultSet lag;
+    private SimpleMeterRegistry meterRegistry;
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = mock(DataSource.class);
+        replica = mock(DataSource.class);
+        primaryConnection = mock(Connection.class);
+        replicaConnection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        lag = mock(ResultSet.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        when(replicaConnection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(lag);
+        when(lag.next()).thenReturn(true);
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-0", replica);
+        meterRegistry = new SimpleMeterRegistry();
+        routing = new ReplicaRoutingDataSource(primary, replicas, MAX_LAG, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should use the primary until a replica passes its health check")
+    void getConnection_ShouldUsePrimary_WhenNoReplicaIsHealthy() throws SQLException {
+        assertSame(primaryConnection, routing.getConnection());
+
+        when(lag.getDouble(1)).thenReturn(0.0);
+        routing.checkHealth();
+
+        assertSame(replicaConnection, routing.getConnection());
+    }
+
+    @Test
+    @DisplayName("Should drop a replica whose replication lag exceeds the limit")
+    void checkHealth_ShouldRemoveReplica_WhenLagIsTooHigh() throws SQLException {
+        when(lag.getDouble(1)).thenReturn(0.0);
+        routing.checkHealth();
+        when(lag.getDouble(1)).thenReturn(MAX_LAG * 5.0);
+        routing.checkHealth();
+
+        assertSame(primaryConnection, routing.getConnection());
+        assertEquals(0.0, meterRegistry.get("datasource.replicas.healthy").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should fall back to the primary when a replica refuses connections")
+    void getConnection_ShouldFailOver_WhenReplicaIsDown() throws SQLException {
+        when(lag.getDouble(1)).thenReturn(0.0);
+        routing.checkHealth();
+        when(replica.getConnection()).thenThrow(new SQLException("connection refused"));
+
+        assertSame(primaryConnection, routing.getConnection());
+        assertSame(primaryConnection, routing.getConnection());
+        assertEquals(1.0, meterRegistry.get("datasource.routing.failovers").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should read from the primary inside onPrimary and from the replica again afterwards")
+    void onPrimary_ShouldForcePrimary_WhenReplicaIsHealthy() throws SQLException {
+        when(lag.getDouble(1)).thenReturn(0.0);
+        routing.checkHealth();
+
+        Connection forced = ReplicaRoutingDataSource.onPrimary(() -> {
+            try {
+                return routing.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertSame(primaryConnection, forced);
+        assertSame(replicaConnection, routing.getConnection());
+    }
+}
@@ -1,20 +1,54 @@
 package com.pablovass.authservice.service;
 
+import com.pablovass.authservice.controller.dto.LoginRequest;
+import com.pablovass.authservice.controller.dto.LoginResponse;
+import com.pablovass.authservice.controller.dto.RefreshRequest;
+import com.pablovass.authservice.controller.dto.RefreshResponse;
 import com.pablovass.authservice.controller.dto.RegisterRequest;
+import com.pablovass.authservice.controller.dto.UserProfileResponse;
 import com.pablovass.authservice.controller.mapper.UserMapper;
+import com.pablovass.authservice.domain.model.AuthenticatedUser;
+import com.pablovass.authservice.domain.model.Role;
+import com.pablovass.authservice.domain.model.UserSnapshot;
 import com.pablovass.authservice.domain.model.entity.User;
 import com.pablovass.authservice.repository.UserRepository;
+import com.pablovass.authservice.repository.routing.ReadYourWrites;
+import com.pablovass.authservice.service.availability.AvailabilityService;
+import com.pablovass.authservice.service.concurrency.StructuredFanOut;
+import com.pablovass.authservice.service.diagnostics.EndpointTracker;
+import com.pablovass.authservice.service.event.UserRegisteredEvent;
+import com.pablovass.authservice.service.exception.TooManyRequestsException;
 import com.pablovass.authservice.service.impl.AuthServiceImpl;
+import com.pablovass.authservice.service.observability.AuthObservations;
+import com.pablovass.authservice.service.outbox.OutboxService;
+import com.pablovass.authservice.service.ratelimit.LoginRateLimiter;
+import com.pablovass.authservice.service.revocation.TokenRevocationService;
+import com.pablovass.authservice.service.token.RefreshRotation;
+import com.pablovass.authservice.service.token.RefreshToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.BadCredentialsException;
 
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,7 +62,40 @@ class AuthServiceTest {
     private UserMapper userMapper;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
+
+    @Mock
+    private RedisTokenService redisTokenService;
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private UserSnapshotCache userSnapshotCache;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private LoginRateLimiter loginRateLimiter;
+
+    @Mock
+    private AvailabilityService availabilityService;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    @Spy
+    private ReadYourWrites readYourWrites = ReadYourWrites.withoutReplicas(new SimpleMeterRegistry());
+
+    @Spy
+    private AuthObservations observations = new AuthObservations(ObservationRegistry.NOOP);
+
+    @Spy
+    private StructuredFanOut structuredFanOut =
+        new StructuredFanOut(observations, ObservationRegistry.NOOP, new SimpleMeterRegistry(), new EndpointTracker(), 2000, 1);
+
+    private static final String OLD_TOKEN = RefreshToken.newSession(1L).value();
 
     @InjectMocks
     private AuthServiceImpl authService;
@@ -40,17 +107,18 @@ class AuthServiceTest {
         RegisterRequest request = new RegisterRequest("test@example.com", "testuser", "Password123");
         User user = new User();
         
-        when(userRepository.existsByEmail(request.email())).thenReturn(false);
-        when(userRepository.existsByUsername(request.username())).thenReturn(false);
         when(userMapper.toEntity(request)).thenReturn(user);
-        when(passwordEncoder.encode(request.password())).thenReturn("encodedPassword");
+        when(passwordHashingService.encode(request.password())).thenReturn("encodedPassword");
+        when(userRepository.saveAndFlush(user)).thenReturn(user);
 
         // Act
         authService.register(request);
 
         // Assert
-        verify(userRepository).save(user);
-        verify(passwordEncoder).encode("Password123");
+        verify(userRepository).saveAndFlush(user);
+        verify(userRepository, never()).existsByEmailIgnoreCase(any());
+        verify(passwordHashingService).encode("Password123");
+        verify(outboxService).enqueueUserEvent(any(), any(UserRegisteredEvent.class));
     }
 
     @Test
@@ -58,11 +126,13 @@ class AuthServiceTest {
     void register_ShouldThrowException_WhenEmailExists() {
         // Arrange
         RegisterRequest request = new RegisterRequest("test@example.com", "testuser", "Password123");
-        when(userRepository.existsByEmail(request.email())).thenReturn(true);
+        when(userMapper.toEntity(request)).thenReturn(new User());
+        when(userRepository.saveAndFlush(any())).thenThrow(uniqueViolation(User.EMAIL_CONSTRAINT));
 
         // Act & Assert
-        assertThrows(IllegalArgumentException.class, () -> authService.register(request));
-        verify(userRepository, never()).save(any());
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> authService.register(request));
+        assertEquals("El email ya está registrado", ex.getMessage());
+        verifyNoInteractions(outboxService);
     }
 
     @Test
@@ -70,11 +140,229 @@ class AuthServiceTest {
     void register_ShouldThrowException_WhenUsernameExists() {
         // Arrange
         RegisterRequest request = new RegisterRequest("test@example.com", "testuser", "Password123");
-        when(userRepository.existsByEmail(request.email())).thenReturn(false);
-        when(userRepository.existsByUsername(request.username())).thenReturn(true);
+        when(userMapper.toEntity(request)).thenReturn(new User());
+        when(userRepository.saveAndFlush(any())).thenThrow(uniqueViolation(User.USERNAME_CONSTRAINT));
+
+        // Act & Assert
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> authService.register(request));
+        assertEquals("El nombre de usuario ya está en uso", ex.getMessage());
+        verifyNoInteractions(outboxService);
+    }
+
+    private static DataIntegrityViolationException uniqueViolation(String constraint) {
+        return new DataIntegrityViolationException("could not execute statement",
+            new ConstraintViolationException("duplicate key", new SQLException("duplicate key", "23505"), constraint));
+    }
+
+    @Test
+    @DisplayName("Should count a failed attempt without hashing when the email does not exist")
+    void login_ShouldRecordFailure_WhenEmailDoesNotExist() {
+        // Arrange
+        LoginRequest request = new LoginRequest("ghost@example.com", "Password123");
+        when(userRepository.findByEmailIgnoreCase(request.email())).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(BadCredentialsException.class, () -> authService.login(request, "10.0.0.1", "JUnit"));
+        verify(loginRateLimiter).acquire("10.0.0.1", "ghost@example.com");
+        verify(loginRateLimiter).recordFailure("ghost@example.com");
+        verifyNoInteractions(passwordHashingService);
+    }
+
+    @Test
+    @DisplayName("Should open the session and sign the access token for the same session id")
+    void login_ShouldIssueTokensForNewSession_WhenCredentialsAreValid() {
+        // Arrange
+        LoginRequest request = new LoginRequest("test@example.com", "Password123");
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("testuser");
+        user.setPassword("hash");
+        when(userRepository.findByEmailIgnoreCase(request.email())).thenReturn(Optional.of(user));
+        when(passwordHashingService.matches("Password123", "hash")).thenReturn(true);
+        when(jwtService.generateAccessToken(any(UserSnapshot.class), any())).thenReturn("access-token");
+        doThrow(new IllegalStateException("outbox down")).when(outboxService).enqueueUserEvent(any(), any());
+
+        // Act
+        LoginResponse response = authService.login(request, "10.0.0.1", "JUnit");
+
+        // Assert
+        ArgumentCaptor<RefreshToken> session = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(redisTokenService).openSession(session.capture(), eq("10.0.0.1"), eq("JUnit"));
+        verify(jwtService).generateAccessToken(any(UserSnapshot.class), eq(session.getValue().sessionId()));
+        assertEquals("access-token", response.accessToken());
+        assertEquals(session.getValue().value(), response.refreshToken());
+    }
+
+    @Test
+    @DisplayName("Should invalidate the cached user on every node once the rehashed password is stored")
+    @SuppressWarnings("unchecked")
+    void login_ShouldInvalidateSnapshot_WhenPasswordIsRehashed() {
+        // Arrange
+        LoginRequest request = new LoginRequest("test@example.com", "Password123");
+        User user = new User();
+        user.setId(1L);
+        user.setPassword("hash");
+        when(userRepository.findByEmailIgnoreCase(request.email())).thenReturn(Optional.of(user));
+        when(passwordHashingService.matches("Password123", "hash")).thenReturn(true);
+        when(userRepository.updatePassword(1L, "hash", "newHash")).thenReturn(1);
+        authService.login(request, "10.0.0.1", "JUnit");
+        ArgumentCaptor<Consumer<String>> onRehashed = ArgumentCaptor.forClass(Consumer.class);
+        verify(passwordHashingService).rehashInBackground(eq("Password123"), eq("hash"), onRehashed.capture());
+
+        // Act
+        onRehashed.getValue().accept("newHash");
+
+        // Assert
+        verify(userRepository).updatePassword(1L, "hash", "newHash");
+        verify(userSnapshotCache).invalidate(1L);
+    }
+
+    @Test
+    @DisplayName("Should fail the login when the session cannot be stored")
+    void login_ShouldThrowException_WhenSessionStoreFails() {
+        // Arrange
+        LoginRequest request = new LoginRequest("test@example.com", "Password123");
+        User user = new User();
+        user.setId(1L);
+        user.setPassword("hash");
+        when(userRepository.findByEmailIgnoreCase(request.email())).thenReturn(Optional.of(user));
+        when(passwordHashingService.matches("Password123", "hash")).thenReturn(true);
+        doThrow(new IllegalStateException("redis down")).when(redisTokenService).openSession(any(), any(), any());
+
+        // Act & Assert
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> authService.login(request, "10.0.0.1", "JUnit"));
+        assertEquals("redis down", ex.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should rotate the refresh token and look up the user from the token id")
+    void refresh_ShouldIssueNewTokens_WhenTokenIsRotated() {
+        // Arrange
+        UserSnapshot user = new UserSnapshot(1L, "testuser", "test@example.com", Role.DEFAULT_MASK, null);
+        when(redisTokenService.rotateRefreshToken(OLD_TOKEN)).thenReturn(RefreshRotation.rotated(1L, "sid-1", "new-token"));
+        when(userSnapshotCache.get(1L)).thenReturn(Optional.of(user));
+        when(jwtService.generateAccessToken(user, "sid-1")).thenReturn("access-token");
+
+        // Act
+        RefreshResponse response = authService.refresh(new RefreshRequest(OLD_TOKEN));
+
+        // Assert
+        assertEquals("access-token", response.accessToken());
+        assertEquals("new-token", response.refreshToken());
+        verify(redisTokenService).completeRotation(OLD_TOKEN, "new-token", "access-token");
+    }
+
+    @Test
+    @DisplayName("Should undo the rotation when the new access token cannot be issued")
+    void refresh_ShouldAbandonRotation_WhenSigningFails() {
+        // Arrange
+        UserSnapshot user = new UserSnapshot(1L, "testuser", "test@example.com", Role.DEFAULT_MASK, null);
+        when(redisTokenService.rotateRefreshToken(OLD_TOKEN)).thenReturn(RefreshRotation.rotated(1L, "sid-1", "new-token"));
+        when(userSnapshotCache.get(1L)).thenReturn(Optional.of(user));
+        when(jwtService.generateAccessToken(user, "sid-1")).thenThrow(new IllegalStateException("No hay clave de firma JWT activa"));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> authService.refresh(new RefreshRequest(OLD_TOKEN)));
+        verify(redisTokenService).abandonRotation(OLD_TOKEN);
+        verify(redisTokenService, never()).completeRotation(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should let the rotation finish and then undo it when the user lookup fails")
+    void refresh_ShouldAbandonRotation_WhenLookupFailsDuringRotation() {
+        // Arrange: la búsqueda falla mientras la rotación sigue en curso
+        when(redisTokenService.rotateRefreshToken(OLD_TOKEN)).thenAnswer(invocation -> {
+            Thread.sleep(100);
+            return RefreshRotation.rotated(1L, "sid-1", "new-token");
+        });
+        when(userSnapshotCache.get(1L)).thenThrow(new IllegalStateException("replica down"));
+
+        // Act & Assert
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> authService.refresh(new RefreshRequest(OLD_TOKEN)));
+        assertEquals("replica down", ex.getMessage());
+        verify(redisTokenService).abandonRotation(OLD_TOKEN);
+        verify(redisTokenService, never()).completeRotation(any(), any(), any());
+        verifyNoInteractions(jwtService);
+    }
+
+    @Test
+    @DisplayName("Should reject a malformed refresh token without calling Redis")
+    void refresh_ShouldThrowException_WhenTokenIsMalformed() {
+        assertThrows(BadCredentialsException.class, () -> authService.refresh(new RefreshRequest("old-token")));
+        verifyNoInteractions(redisTokenService, userSnapshotCache);
+    }
+
+    @Test
+    @DisplayName("Should return the cached response when refresh is repeated within the grace window")
+    void refresh_ShouldReturnCachedResponse_WhenWithinGraceWindow() {
+        // Arrange
+        when(redisTokenService.rotateRefreshToken(OLD_TOKEN))
+                .thenReturn(RefreshRotation.grace("new-token", "access-token"));
+
+        // Act
+        RefreshResponse response = authService.refresh(new RefreshRequest(OLD_TOKEN));
+
+        // Assert
+        assertEquals("access-token", response.accessToken());
+        assertEquals("new-token", response.refreshToken());
+        verify(userRepository, never()).findById(any());
+        verify(redisTokenService, never()).completeRotation(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should answer the profile from the token claims without touching the database")
+    void getProfile_ShouldUseTokenClaims_WhenProfileIsEmbedded() {
+        // Arrange
+        AuthenticatedUser principal = new AuthenticatedUser(1L, "testuser", Role.DEFAULT_MASK,
+                "test@example.com", LocalDateTime.of(2024, 5, 1, 10, 30), "jti", "sid", Instant.now().plusSeconds(60));
+
+        // Act
+        UserProfileResponse response = authService.getProfile(principal, false);
+
+        // Assert
+        assertEquals("test@example.com", response.email());
+        verifyNoInteractions(userSnapshotCache, userRepository);
+    }
+
+    @Test
+    @DisplayName("Should reject a rotated refresh token reused after the grace window")
+    void refresh_ShouldThrowException_WhenRotatedTokenIsReused() {
+        // Arrange
+        when(redisTokenService.rotateRefreshToken(OLD_TOKEN)).thenReturn(RefreshRotation.reused(1L, "sid-1"));
+
+        // Act & Assert
+        assertThrows(BadCredentialsException.class, () -> authService.refresh(new RefreshRequest(OLD_TOKEN)));
+        verify(userRepository, never()).findById(any());
+        verify(tokenRevocationService).revokeSession("sid-1");
+    }
+
+    @Test
+    @DisplayName("Should close only the session of the presented access token on logout")
+    void logout_ShouldRevokeCurrentSession_WhenUserIsAuthenticated() {
+        // Arrange
+        AuthenticatedUser principal = new AuthenticatedUser(1L, "testuser", Role.DEFAULT_MASK, null, null,
+                "jti-1", "sid-1", Instant.now().plusSeconds(60));
+
+        // Act
+        authService.logout(principal);
+
+        // Assert
+        verify(tokenRevocationService).revokeSession("sid-1");
+        verify(redisTokenService).revokeSession(1L, "sid-1");
+        verify(redisTokenService, never()).revokeAllSessions(any());
+        verify(tokenRevocationService, never()).revokeAll(any());
+    }
+
+    @Test
+    @DisplayName("Should not reveal availability when the client IP exceeds the lookup limit")
+    void checkAvailability_ShouldThrowException_WhenRateLimited() {
+        // Arrange
+        doThrow(new TooManyRequestsException("Demasiadas consultas de disponibilidad", 2))
+            .when(loginRateLimiter).acquireLookup("10.0.0.1");
 
         // Act & Assert
-        assertThrows(IllegalArgumentException.class, () -> authService.register(request));
-        verify(userRepository, never()).save(any());
+        assertThrows(TooManyRequestsException.class,
+            () -> authService.checkAvailability(null, "test@example.com", "10.0.0.1"));
+        verifyNoInteractions(availabilityService);
     }
 }
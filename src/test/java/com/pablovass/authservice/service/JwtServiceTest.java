@@ -0,0 +1,186 @@
+package com.pablovass.authservice.service;
+
+import com.pablovass.authservice.domain.model.Role;
+import com.pablovass.authservice.domain.model.UserSnapshot;
+import com.pablovass.authservice.service.revocation.TokenRevocationService;
+import com.pablovass.authservice.service.token.JwtKeyRing;
+import com.pablovass.authservice.service.token.VerifiedToken;
+import com.pablovass.authservice.service.token.VerifiedTokenCache;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Jwt Service Unit Tests")
+class JwtServiceTest {
+
+    private static final String SECRET = "test-secret-key-with-at-least-256-bits-for-the-hs256-algorithm";
+    private static final String KEYRING_ENCRYPTION_KEY = "TpsjDxNees0FcheENRdcoceJzmrwXQCjBblWjM5Pjx0=";
+
+    private VerifiedTokenCache verifiedTokenCache;
+    private TokenRevocationService tokenRevocationService;
+    private JwtService jwtService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jwtService = newJwtService("ES256");
+    }
+
+    @SuppressWarnings("unchecked")
+    private JwtService newJwtService(String algorithm) throws Exception {
+        RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+        HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(hashOperations.entries(anyString())).thenReturn(Map.of());
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+
+        JwtKeyRing keyRing = new JwtKeyRing(redisTemplate);
+        ReflectionTestUtils.setField(keyRing, "secret", SECRET);
+        ReflectionTestUtils.setField(keyRing, "accessTokenExpiration", 60_000L);
+        ReflectionTestUtils.setField(keyRing, "algorithm", algorithm);
+        ReflectionTestUtils.setField(keyRing, "acceptLegacyHs256", true);
+        ReflectionTestUtils.setField(keyRing, "rotationInterval", 86_400_000L);
+        ReflectionTestUtils.setField(keyRing, "publishLead", 900_000L);
+        ReflectionTestUtils.setField(keyRing, "encryptionKey", KEYRING_ENCRYPTION_KEY);
+        ReflectionTestUtils.invokeMethod(keyRing, "init");
+
+        verifiedTokenCache = new VerifiedTokenCache(new SimpleMeterRegistry(), 100);
+        tokenRevocationService = mock(TokenRevocationService.class);
+        JwtService service = new JwtService(verifiedTokenCache, keyRing, tokenRevocationService);
+        ReflectionTestUtils.setField(service, "accessTokenExpiration", 60_000L);
+        service.init();
+        return service;
+    }
+
+    @Test
+    @DisplayName("Should verify a generated token and expose its claims")
+    void verify_ShouldReturnClaims_WhenTokenIsValid() {
+        String token = jwtService.generateAccessToken(42L, "pilot", "ROLE_USER");
+
+        VerifiedToken verified = jwtService.verify(token);
+
+        assertEquals(42L, verified.userId());
+        assertEquals("pilot", verified.username());
+        assertEquals(Role.DEFAULT_MASK, verified.roleMask());
+        assertFalse(verified.isExpired());
+    }
+
+    @Test
+    @DisplayName("Should embed profile claims when self-contained profile is enabled")
+    void verify_ShouldExposeProfile_WhenSelfContainedProfileIsEnabled() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 5, 1, 10, 30);
+        UserSnapshot user = new UserSnapshot(42L, "pilot", "pilot@example.com", Role.DEFAULT_MASK, createdAt);
+
+        assertNull(jwtService.verify(jwtService.generateAccessToken(user)).email());
+
+        ReflectionTestUtils.setField(jwtService, "selfContainedProfile", true);
+        VerifiedToken verified = jwtService.verify(jwtService.generateAccessToken(user));
+
+        assertEquals("pilot@example.com", verified.email());
+        assertEquals(createdAt, verified.createdAt());
+    }
+
+    @Test
+    @DisplayName("Should sign with EdDSA when configured")
+    void verify_ShouldReturnClaims_WhenSignedWithEdDsa() throws Exception {
+        JwtService eddsaService = newJwtService("EdDSA");
+        String token = eddsaService.generateAccessToken(7L, "ace", "ROLE_USER");
+
+        assertEquals(7L, eddsaService.verify(token).userId());
+    }
+
+    @Test
+    @DisplayName("Should accept legacy HS256 tokens without kid")
+    void verify_ShouldAcceptLegacyToken_WhenSignedWithSharedSecret() {
+        String legacy = Jwts.builder()
+                .subject("9")
+                .claim("username", "legacy")
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+
+        assertEquals(9L, jwtService.verify(legacy).userId());
+    }
+
+    @Test
+    @DisplayName("Should carry the role mask and map legacy role claims onto it")
+    void verify_ShouldExposeRoleMask_WhenTokenCarriesRoles() {
+        int adminMask = Role.mask(Set.of(Role.USER, Role.ADMIN));
+        UserSnapshot admin = new UserSnapshot(1L, "root", "root@example.com", adminMask, LocalDateTime.now());
+        String legacy = Jwts.builder()
+                .subject("9")
+                .claim("role", "ROLE_ADMIN")
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+
+        assertEquals(adminMask, jwtService.verify(jwtService.generateAccessToken(admin)).roleMask());
+        assertEquals(Role.ADMIN.bit(), jwtService.verify(legacy).roleMask());
+    }
+
+    @Test
+    @DisplayName("Should issue a unique jti and embed the session and the user's token epoch")
+    void verify_ShouldExposeTokenIdSessionAndEpoch_WhenTokenIsIssued() {
+        when(tokenRevocationService.currentEpoch(42L)).thenReturn(1_700_000_000_000L);
+
+        VerifiedToken first = jwtService.verify(jwtService.generateAccessToken(42L, "pilot", "ROLE_USER"));
+        VerifiedToken second = jwtService.verify(jwtService.generateAccessToken(42L, "pilot", "ROLE_USER"));
+
+        assertNotNull(first.tokenId());
+        assertNotEquals(first.tokenId(), second.tokenId());
+        assertEquals(1_700_000_000_000L, first.epoch());
+        assertEquals(0L, jwtService.verify(jwtService.generateAccessToken(7L, "ace", "ROLE_USER")).epoch());
+        UserSnapshot user = new UserSnapshot(42L, "pilot", "pilot@example.com", Role.DEFAULT_MASK, LocalDateTime.now());
+        assertEquals("sid-1", jwtService.verify(jwtService.generateAccessToken(user, "sid-1")).sessionId());
+    }
+
+    @Test
+    @DisplayName("Should serve repeated verifications of the same token from the cache")
+    void verify_ShouldHitCache_WhenTokenIsRepeated() {
+        String token = jwtService.generateAccessToken(42L, "pilot", "ROLE_USER");
+
+        VerifiedToken first = jwtService.verify(token);
+        VerifiedToken second = jwtService.verify(token);
+
+        assertSame(first, second);
+        assertEquals(1, verifiedTokenCache.stats().missCount());
+        assertEquals(1, verifiedTokenCache.stats().hitCount());
+    }
+
+    @Test
+    @DisplayName("Should reject a token with a tampered signature")
+    void verify_ShouldThrow_WhenSignatureIsInvalid() {
+        String token = jwtService.generateAccessToken(42L, "pilot", "ROLE_USER");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> jwtService.verify(tampered));
+    }
+}
@@ -0,0 +1,123 @@
+package com.pablovass.authservice.service;
+
+import com.pablovass.authservice.domain.model.Role;
+import com.pablovass.authservice.domain.model.UserSnapshot;
+import com.pablovass.authservice.domain.model.entity.User;
+import com.pablovass.authservice.repository.UserRepository;
+import com.pablovass.authservice.repository.routing.ReadYourWrites;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("User Snapshot Cache Unit Tests")
+class UserSnapshotCacheTest {
+
+    private UserRepository userRepository;
+    private RedisTemplate<String, String> redisTemplate;
+    private UserSnapshotCache cache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        redisTemplate = mock(RedisTemplate.class);
+        cache = newCache();
+    }
+
+    @Test
+    @DisplayName("Should load the user once and serve repeated lookups from the cache")
+    void get_ShouldHitCache_WhenUserIsRepeated() {
+        User user = User.builder().id(1L).username("pilot").email("pilot@example.com").roleMask(Role.DEFAULT_MASK).build();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        UserSnapshot first = cache.get(1L).orElseThrow();
+        UserSnapshot second = cache.get(1L).orElseThrow();
+
+        assertEquals("pilot", second.username());
+        assertEquals(first, second);
+        verify(userRepository, times(1)).findById(1L);
+        assertEquals(1, cache.stats().hitCount());
+    }
+
+    @Test
+    @DisplayName("Should not cache missing users")
+    void get_ShouldReturnEmpty_WhenUserDoesNotExist() {
+        when(userRepository.findById(2L)).thenReturn(Optional.empty());
+
+        assertTrue(cache.get(2L).isEmpty());
+        assertTrue(cache.get(2L).isEmpty());
+
+        verify(userRepository, times(2)).findById(2L);
+    }
+
+    @Test
+    @DisplayName("Should reload the user and notify other nodes after invalidation")
+    void invalidate_ShouldEvictAndPublish_WhenUserChanges() {
+        User user = User.builder().id(1L).username("pilot").email("pilot@example.com").roleMask(Role.DEFAULT_MASK).build();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        cache.get(1L);
+
+        cache.invalidate(1L);
+        cache.get(1L);
+
+        verify(redisTemplate).convertAndSend("auth:user-invalidations", "1");
+        verify(userRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Should notify other nodes when reloading a user from the primary")
+    void reload_ShouldPublishInvalidation_WhenUserIsReloaded() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user(1L)));
+
+        cache.reload(1L);
+        cache.get(1L);
+
+        verify(redisTemplate).convertAndSend("auth:user-invalidations", "1");
+        verify(userRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Should evict on another node every user of a published batch invalidation")
+    void handleMessage_ShouldEvictLocal_WhenInvalidationIsPublished() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user(1L)));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(user(2L)));
+        UserSnapshotCache otherNode = newCache();
+        otherNode.get(1L);
+        otherNode.get(2L);
+
+        cache.invalidate(List.of(1L, 2L));
+        ArgumentCaptor<String> body = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq("auth:user-invalidations"), body.capture());
+        otherNode.handleMessage(body.getValue());
+        otherNode.get(1L);
+        otherNode.get(2L);
+
+        assertEquals("1,2", body.getValue());
+        verify(userRepository, times(2)).findById(1L);
+        verify(userRepository, times(2)).findById(2L);
+    }
+
+    private UserSnapshotCache newCache() {
+        return new UserSnapshotCache(userRepository, ReadYourWrites.withoutReplicas(new SimpleMeterRegistry()),
+            redisTemplate, new SimpleMeterRegistry(),
+            60_000L, 100L, "auth:user-invalidations");
+    }
+
+    private static User user(Long id) {
+        return User.builder().id(id).username("pilot-" + id).email("pilot" + id + "@example.com").roleMask(Role.DEFAULT_MASK).build();
+    }
+}
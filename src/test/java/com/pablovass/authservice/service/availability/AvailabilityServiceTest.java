@@ -0,0 +1,62 @@
+package com.pablovass.authservice.service.availability;
+
+import com.pablovass.authservice.domain.model.UserIdentifiers;
+import com.pablovass.authservice.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Availability Service Unit Tests")
+class AvailabilityServiceTest {
+
+    private UserRepository userRepository;
+    private AvailabilityService availabilityService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        availabilityService = new AvailabilityService(userRepository, mock(PlatformTransactionManager.class),
+            new SimpleMeterRegistry(), 1_000L, 0.01);
+        when(userRepository.count()).thenReturn(1L);
+        when(userRepository.streamIdentifiers()).thenReturn(Stream.of(new UserIdentifiers("Pilot", "pilot@example.com")));
+        availabilityService.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should answer from the filter without querying the database for unknown names")
+    void isUsernameAvailable_ShouldSkipDatabase_WhenFilterSaysAbsent() {
+        assertTrue(availabilityService.isUsernameAvailable("newcomer"));
+        verify(userRepository, never()).existsByUsernameIgnoreCase(anyString());
+    }
+
+    @Test
+    @DisplayName("Should confirm with the database when the filter says maybe present")
+    void isEmailAvailable_ShouldQueryDatabase_WhenFilterSaysMaybe() {
+        when(userRepository.existsByEmailIgnoreCase("pilot@example.com")).thenReturn(true);
+
+        assertFalse(availabilityService.isEmailAvailable("pilot@example.com"));
+        verify(userRepository).existsByEmailIgnoreCase("pilot@example.com");
+    }
+
+    @Test
+    @DisplayName("Should never report a registered username as definitely absent")
+    void recordRegistered_ShouldAvoidFalseNegatives() {
+        IntStream.range(0, 500).forEach(i -> availabilityService.recordRegistered("user" + i, "user" + i + "@example.com"));
+        when(userRepository.existsByUsernameIgnoreCase(anyString())).thenReturn(true);
+
+        IntStream.range(0, 500).forEach(i -> assertFalse(availabilityService.isUsernameAvailable("USER" + i)));
+    }
+}
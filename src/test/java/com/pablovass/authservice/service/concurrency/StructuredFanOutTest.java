@@ -0,0 +1,162 @@
+package com.pablovass.authservice.service.concurrency;
+
+import com.pablovass.authservice.service.diagnostics.EndpointTracker;
+import com.pablovass.authservice.service.exception.ServiceOverloadedException;
+import com.pablovass.authservice.service.observability.AuthObservations;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Structured Fan-Out Unit Tests")
+class StructuredFanOutTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private EndpointTracker endpointTracker;
+    private StructuredFanOut fanOut;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        endpointTracker = new EndpointTracker();
+        fanOut = new StructuredFanOut(new AuthObservations(ObservationRegistry.NOOP), ObservationRegistry.NOOP,
+            meterRegistry, endpointTracker, 500, 1);
+    }
+
+    @Test
+    @DisplayName("Should run the phases in parallel and record critical and sequential time")
+    void join_ShouldReturnResults_WhenAllPhasesSucceed() {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        Supplier<String> first;
+        Supplier<String> second;
+        try (StructuredFanOut.Scope scope = fanOut.open("login")) {
+            first = scope.fork("first", () -> awaitSibling(bothStarted, "a"));
+            second = scope.fork("second", () -> awaitSibling(bothStarted, "b"));
+            scope.join();
+        }
+
+        assertEquals("a", first.get());
+        assertEquals("b", second.get());
+        assertNotNull(meterRegistry.find("auth.fan-out").tags("operation", "login", "path", "critical").timer());
+        assertNotNull(meterRegistry.find("auth.fan-out").tags("operation", "login", "path", "sequential").timer());
+    }
+
+    @Test
+    @DisplayName("Should cancel the other phases and rethrow the first failure as is")
+    void join_ShouldPropagateFailure_WhenOnePhaseFails() {
+        AtomicBoolean interrupted = new AtomicBoolean();
+        try (StructuredFanOut.Scope scope = fanOut.open("refresh")) {
+            scope.fork("slow", () -> interrupted.set(sleepUntilInterrupted()));
+            scope.fork("failing", () -> {
+                throw new IllegalArgumentException("boom");
+            });
+
+            IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, scope::join);
+            assertEquals("boom", ex.getMessage());
+        }
+
+        assertTrue(interrupted.get());
+    }
+
+    @Test
+    @DisplayName("Should not cancel siblings when an isolated phase fails and rethrow on read")
+    void forkIsolated_ShouldDeferFailure_WhenPhaseFails() {
+        Supplier<String> slow;
+        Supplier<String> failing;
+        try (StructuredFanOut.Scope scope = fanOut.open("refresh")) {
+            slow = scope.fork("slow", () -> {
+                Thread.sleep(50);
+                return "done";
+            });
+            failing = scope.forkIsolated("failing", () -> {
+                throw new IllegalArgumentException("boom");
+            });
+            scope.join();
+        }
+
+        assertEquals("done", slow.get());
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, failing::get);
+        assertEquals("boom", ex.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should answer 503 when the phases exceed the shared deadline")
+    void join_ShouldThrowOverloaded_WhenDeadlineExpires() {
+        try (StructuredFanOut.Scope scope = fanOut.open("login")) {
+            scope.fork("stuck", () -> {
+                sleepUntilInterrupted();
+            });
+
+            ServiceOverloadedException ex = assertThrows(ServiceOverloadedException.class, scope::join);
+            assertEquals(1, ex.getRetryAfterSeconds());
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep the result of the phase that cancelled its siblings")
+    void cancel_ShouldKeepResult_WhenCalledFromPhase() {
+        Supplier<String> winner;
+        Supplier<String> loser;
+        try (StructuredFanOut.Scope scope = fanOut.open("refresh")) {
+            winner = scope.fork("winner", () -> {
+                scope.cancel();
+                return "done";
+            });
+            loser = scope.fork("loser", () -> {
+                sleepUntilInterrupted();
+                return "late";
+            });
+            scope.join();
+        }
+
+        assertEquals("done", winner.get());
+        assertThrows(IllegalStateException.class, loser::get);
+    }
+
+    @Test
+    @DisplayName("Should attribute the phase threads to the endpoint of the request that forked them")
+    void fork_ShouldInheritEndpoint_WhenForkedFromRequestThread() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/auth/login");
+        endpointTracker.preHandle(request, new MockHttpServletResponse(), new Object());
+
+        Supplier<Long> phaseThread;
+        try (StructuredFanOut.Scope scope = fanOut.open("login")) {
+            phaseThread = scope.fork("phase", () -> Thread.currentThread().threadId());
+            scope.join();
+        }
+
+        assertNotEquals(Thread.currentThread().threadId(), phaseThread.get());
+        assertEquals("POST /api/auth/login", endpointTracker.endpointOf(phaseThread.get()));
+    }
+
+    private static String awaitSibling(CountDownLatch bothStarted, String result) throws InterruptedException {
+        bothStarted.countDown();
+        assertTrue(bothStarted.await(1, TimeUnit.SECONDS), "Las fases no se ejecutaron en paralelo");
+        return result;
+    }
+
+    private static boolean sleepUntilInterrupted() {
+        try {
+            Thread.sleep(10_000);
+            return false;
+        } catch (InterruptedException e) {
+            return true;
+        }
+    }
+}
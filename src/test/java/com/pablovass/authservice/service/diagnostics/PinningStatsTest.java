@@ -0,0 +1,53 @@
+package com.pablovass.authservice.service.diagnostics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("Pinning Stats Unit Tests")
+class PinningStatsTest {
+
+    private final PinningStats stats = new PinningStats("com.pablovass.authservice");
+
+    @Test
+    @DisplayName("Should attribute pinning to the first application frame")
+    void callSite_ShouldReturnApplicationFrame_WhenPresent() {
+        String site = stats.callSite(List.of(
+            "java.lang.Object.wait0",
+            "com.zaxxer.hikari.pool.HikariPool.getConnection",
+            "com.pablovass.authservice.service.impl.AuthServiceImpl.login"));
+
+        assertEquals("com.pablovass.authservice.service.impl.AuthServiceImpl.login", site);
+    }
+
+    @Test
+    @DisplayName("Should fall back to the first library frame outside the JDK")
+    void callSite_ShouldReturnLibraryFrame_WhenNoApplicationFrame() {
+        String site = stats.callSite(List.of(
+            "jdk.internal.misc.Unsafe.park",
+            "io.lettuce.core.protocol.CommandHandler.write",
+            "org.apache.kafka.clients.producer.KafkaProducer.send"));
+
+        assertEquals("io.lettuce.core.protocol.CommandHandler.write", site);
+    }
+
+    @Test
+    @DisplayName("Should aggregate per endpoint and site ordered by total pinned time")
+    void snapshot_ShouldOrderByTotalTime_WhenSeveralSitesPin() {
+        List<String> login = List.of("com.pablovass.authservice.service.impl.AuthServiceImpl.login");
+        List<String> refresh = List.of("com.pablovass.authservice.service.impl.AuthServiceImpl.refresh");
+        stats.record("POST /api/auth/login", login, 30_000_000);
+        stats.record("POST /api/auth/refresh", refresh, 50_000_000);
+        stats.record("POST /api/auth/login", login, 40_000_000);
+
+        List<PinningSite> snapshot = stats.snapshot();
+
+        assertEquals("POST /api/auth/login", snapshot.getFirst().endpoint());
+        assertEquals(2, snapshot.getFirst().count());
+        assertEquals(70, snapshot.getFirst().totalMillis());
+        assertEquals(40, snapshot.getFirst().maxMillis());
+    }
+}
@@ -0,0 +1,93 @@
+package com.pablovass.authservice.service.diagnostics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Virtual Thread Monitor Unit Tests")
+class VirtualThreadMonitorTest {
+
+    private static final String ENDPOINT = "POST /api/auth/login";
+
+    private final Object lock = new Object();
+    private SimpleMeterRegistry meterRegistry;
+    private EndpointTracker endpointTracker;
+    private VirtualThreadMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        endpointTracker = new EndpointTracker();
+        monitor = new VirtualThreadMonitor(meterRegistry, endpointTracker);
+        ReflectionTestUtils.setField(monitor, "enabled", true);
+        ReflectionTestUtils.setField(monitor, "pinnedThresholdMillis", 10L);
+        ReflectionTestUtils.setField(monitor, "lifecycleEvents", true);
+        monitor.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.stop();
+    }
+
+    @Test
+    @DisplayName("Should attribute a pinned virtual thread to its endpoint and call site")
+    void onPinned_ShouldAttributeToEndpoint_WhenVirtualThreadBlocksInsideSynchronized() throws Exception {
+        Thread thread = Thread.ofVirtual().unstarted(this::blockWhilePinned);
+        endpointTracker.track(thread.threadId(), ENDPOINT);
+        thread.start();
+        thread.join();
+
+        List<PinningSite> pinning = awaitPinning();
+
+        PinningSite site = pinning.getFirst();
+        assertEquals(ENDPOINT, site.endpoint());
+        assertTrue(site.site().startsWith(VirtualThreadMonitorTest.class.getName()), site.site());
+        assertTrue(site.maxMillis() >= 10);
+        assertEquals(1, meterRegistry.get("virtual.threads.pinned").tag("endpoint", ENDPOINT).timer().count());
+    }
+
+    @Test
+    @DisplayName("Should report carrier parallelism and sample busy carriers")
+    void sampleCarriers_ShouldReportCarrierPool_WhenSampled() {
+        monitor.sampleCarriers();
+
+        VirtualThreadReport.Carriers carriers = monitor.report().carriers();
+        assertEquals(1, carriers.samples());
+        assertTrue(carriers.parallelism() > 0);
+        assertTrue(carriers.busy() <= carriers.parallelism());
+    }
+
+    private void blockWhilePinned() {
+        synchronized (lock) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private List<PinningSite> awaitPinning() throws InterruptedException {
+        // El stream de JFR entrega los eventos en bloques (~1 s)
+        for (int attempt = 0; attempt < 100; attempt++) {
+            List<PinningSite> pinning = monitor.report().pinning();
+            if (!pinning.isEmpty()) {
+                return pinning;
+            }
+            Thread.sleep(100);
+        }
+        List<PinningSite> pinning = monitor.report().pinning();
+        assertFalse(pinning.isEmpty(), "No se recibió el evento jdk.VirtualThreadPinned");
+        return pinning;
+    }
+}
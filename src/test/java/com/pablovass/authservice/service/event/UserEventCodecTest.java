@@ -0,0 +1,56 @@
+package com.pablovass.authservice.service.event;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("User Event Codec Unit Tests")
+class UserEventCodecTest {
+
+    private final EventSchemaRegistry registry = new EventSchemaRegistry("schemas/user-events-registry.json");
+    private final UserLoggedInEvent event = new UserLoggedInEvent(42L, "pilot", LocalDateTime.of(2024, 5, 1, 10, 30, 15));
+
+    @Test
+    @DisplayName("Should round-trip events in the binary format with a schema version")
+    void encode_ShouldRoundTrip_WhenFormatIsAvro() {
+        UserEventCodec codec = new UserEventCodec(registry, UserEventCodec.FORMAT_AVRO);
+
+        EncodedEvent encoded = codec.encode(event);
+
+        assertEquals(UserEventCodec.CONTENT_TYPE_AVRO, encoded.contentType());
+        assertEquals(1, encoded.schemaVersion());
+        assertEquals(event, codec.decode(encoded.eventType(), encoded.contentType(), encoded.schemaVersion(), encoded.payload()));
+    }
+
+    @Test
+    @DisplayName("Should keep JSON as the default format and make the binary one smaller")
+    void encode_ShouldDefaultToJson() {
+        UserEventCodec jsonCodec = new UserEventCodec(registry, UserEventCodec.FORMAT_JSON);
+        UserEventCodec avroCodec = new UserEventCodec(registry, UserEventCodec.FORMAT_AVRO);
+
+        EncodedEvent json = jsonCodec.encode(event);
+
+        assertEquals(UserEventCodec.CONTENT_TYPE_JSON, json.contentType());
+        assertNull(json.schemaVersion());
+        assertEquals(event, jsonCodec.decode(json.eventType(), json.contentType(), null, json.payload()));
+        assertTrue(avroCodec.encode(event).payload().length < json.payload().length);
+    }
+
+    @Test
+    @DisplayName("Should reject a binary message that arrives without its schema version")
+    void decode_ShouldThrow_WhenAvroMessageHasNoSchemaVersion() {
+        UserEventCodec codec = new UserEventCodec(registry, UserEventCodec.FORMAT_AVRO);
+        EncodedEvent encoded = codec.encode(event);
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+            () -> codec.decode(encoded.eventType(), encoded.contentType(), null, encoded.payload()));
+
+        assertEquals("Mensaje Avro de UserLoggedInEvent sin header schema-version", ex.getMessage());
+    }
+}
@@ -0,0 +1,61 @@
+package com.pablovass.authservice.service.importer;
+
+import com.pablovass.authservice.service.exception.InvalidImportFileException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Import Row Reader Unit Tests")
+class ImportRowReaderTest {
+
+    @Test
+    @DisplayName("Should map CSV columns by header and honour quoted fields")
+    void read_ShouldParseCsv_WhenHeaderAndQuotesArePresent() {
+        String csv = "\uFEFFusername,password,email\n"
+            + "pilot,\"Pass,word1\",pilot@example.com\n"
+            + "\n"
+            + "\"ace \"\"the\"\" one\",Secret123,ace@example.com\n";
+
+        List<ImportRow> rows = readAll(csv, ImportRowReader.Format.CSV);
+
+        assertEquals(2, rows.size());
+        assertEquals(new ImportRow(2, "pilot@example.com", "pilot", "Pass,word1"), rows.get(0));
+        assertEquals("ace \"the\" one", rows.get(1).username());
+        assertEquals(4, rows.get(1).line());
+    }
+
+    @Test
+    @DisplayName("Should reject a CSV whose header lacks required columns")
+    void read_ShouldThrow_WhenCsvHeaderIsIncomplete() {
+        assertThrows(InvalidImportFileException.class, () -> readAll("email,username\n", ImportRowReader.Format.CSV));
+    }
+
+    @Test
+    @DisplayName("Should parse NDJSON and keep malformed lines as empty rows")
+    void read_ShouldParseNdjson_WhenSomeLinesAreMalformed() {
+        String ndjson = "{\"email\":\"pilot@example.com\",\"username\":\"pilot\",\"password\":\"Password1\"}\n"
+            + "{not json\n";
+
+        List<ImportRow> rows = readAll(ndjson, ImportRowReader.Format.NDJSON);
+
+        assertEquals(new ImportRow(1, "pilot@example.com", "pilot", "Password1"), rows.get(0));
+        assertEquals(2, rows.get(1).line());
+        assertNull(rows.get(1).email());
+    }
+
+    private static List<ImportRow> readAll(String content, ImportRowReader.Format format) {
+        ImportRowReader reader = new ImportRowReader(
+            new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), format);
+        List<ImportRow> rows = new ArrayList<>();
+        reader.forEachRemaining(rows::add);
+        return rows;
+    }
+}
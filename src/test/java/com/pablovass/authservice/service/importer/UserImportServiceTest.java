@@ -0,0 +1,122 @@
+package com.pablovass.authservice.service.importer;
+
+import com.pablovass.authservice.controller.dto.ImportReport;
+import com.pablovass.authservice.service.UserSnapshotCache;
+import com.pablovass.authservice.service.availability.AvailabilityService;
+import com.pablovass.authservice.service.event.UserEventCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("User Import Service Unit Tests")
+class UserImportServiceTest {
+
+    private static final String CSV = "email,username,password\n"
+        + "new@example.com,newpilot,Password123\n"
+        + "taken@example.com,otherpilot,Password123\n";
+
+    private JdbcTemplate jdbcTemplate;
+    private AvailabilityService availabilityService;
+    private UserSnapshotCache userSnapshotCache;
+    private UserImportService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        availabilityService = mock(AvailabilityService.class);
+        userSnapshotCache = mock(UserSnapshotCache.class);
+        PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+        when(passwordEncoder.encode(anyString())).thenReturn("hash");
+
+        service = new UserImportService(jdbcTemplate, mock(PlatformTransactionManager.class), passwordEncoder,
+            Validation.buildDefaultValidatorFactory().getValidator(), mock(UserEventCodec.class),
+            availabilityService, userSnapshotCache, new SimpleMeterRegistry(), 1);
+        ReflectionTestUtils.setField(service, "batchSize", 1000);
+        ReflectionTestUtils.setField(service, "maxRejectedDetails", 1000);
+        ReflectionTestUtils.setField(service, "userEventsTopic", "user-events");
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should not emit events or Bloom entries for rows skipped by ON CONFLICT in a rewritten batch")
+    @SuppressWarnings("unchecked")
+    void importUsers_ShouldSkipDuplicate_WhenBatchReportsNoInfo() {
+        // Arrange: el driver reescribe el batch y no informa el recuento por fila
+        when(jdbcTemplate.queryForList(startsWith("SELECT nextval"), eq(Long.class), any(Object[].class)))
+            .thenReturn(List.of(101L, 102L));
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO users"), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class)))
+            .thenReturn(new int[][] {{Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO}});
+        when(jdbcTemplate.queryForList(startsWith("SELECT id FROM users"), eq(Long.class), any(Object[].class)))
+            .thenReturn(List.of(101L));
+        when(jdbcTemplate.queryForList(startsWith("SELECT lower(email)"), eq(String.class), any(Object[].class)))
+            .thenReturn(List.of("taken@example.com"));
+
+        // Act
+        ImportReport report = service.importUsers(
+            new ByteArrayInputStream(CSV.getBytes(StandardCharsets.UTF_8)), ImportRowReader.Format.CSV);
+
+        // Assert
+        assertEquals(2, report.totalRows());
+        assertEquals(1, report.imported());
+        assertEquals(1, report.rejectedRows());
+        assertEquals(List.of(new ImportReport.RejectedRow(3, "taken@example.com", "El email ya está registrado")),
+            report.rejected());
+
+        ArgumentCaptor<Collection<Integer>> outboxRows = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO outbox_events"), outboxRows.capture(), eq(1),
+            any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(List.of(0), List.copyOf(outboxRows.getValue()));
+        verify(availabilityService).recordRegistered("newpilot", "new@example.com");
+        verify(availabilityService, never()).recordRegistered("otherpilot", "taken@example.com");
+        verify(userSnapshotCache).invalidate(List.of(101L));
+    }
+
+    @Test
+    @DisplayName("Should count every rejected row but detail only the first ones")
+    void importUsers_ShouldCapRejectedDetails_WhenManyRowsAreInvalid() {
+        ReflectionTestUtils.setField(service, "maxRejectedDetails", 2);
+        String csv = "email,username,password\n"
+            + "not-an-email,pilot1,Password123\n"
+            + "not-an-email,pilot2,Password123\n"
+            + "not-an-email,pilot3,Password123\n";
+
+        ImportReport report = service.importUsers(
+            new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), ImportRowReader.Format.CSV);
+
+        assertEquals(3, report.totalRows());
+        assertEquals(0, report.imported());
+        assertEquals(3, report.rejectedRows());
+        assertEquals(List.of(2L, 3L), report.rejected().stream().map(ImportReport.RejectedRow::line).toList());
+    }
+}
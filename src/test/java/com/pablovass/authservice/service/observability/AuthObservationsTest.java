@@ -0,0 +1,61 @@
+package com.pablovass.authservice.service.observability;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Auth Observations Unit Tests")
+class AuthObservationsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AuthObservations observations;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+        observations = new AuthObservations(observationRegistry);
+    }
+
+    @Test
+    @DisplayName("Should time the operation and each phase with the outcome set during the operation")
+    void operation_ShouldRecordPhasesAndOutcome_WhenOperationSucceeds() {
+        String token = observations.operation("login", () -> {
+            observations.phase("login", "lookup", () -> { });
+            String issued = observations.phase("login", "access-token", () -> "token");
+            observations.outcome("success");
+            return issued;
+        });
+
+        assertEquals("token", token);
+        Timer operation = meterRegistry.get(AuthObservations.OPERATION)
+                .tags("operation", "login", "outcome", "success", "error", "none").timer();
+        assertEquals(1, operation.count());
+        assertEquals(1, meterRegistry.get(AuthObservations.PHASE).tags("operation", "login", "phase", "lookup").timer().count());
+        assertEquals(1, meterRegistry.get(AuthObservations.PHASE).tags("operation", "login", "phase", "access-token").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should tag the failing phase and operation with the exception")
+    void phase_ShouldRecordError_WhenPhaseThrows() {
+        assertThrows(BadCredentialsException.class, () -> observations.operation("refresh", () -> {
+            observations.phase("refresh", "rotate", () -> {
+                throw new BadCredentialsException("Refresh token inválido o expirado");
+            });
+        }));
+
+        assertEquals(1, meterRegistry.get(AuthObservations.PHASE)
+                .tags("phase", "rotate", "error", "BadCredentialsException").timer().count());
+        assertEquals(1, meterRegistry.get(AuthObservations.OPERATION)
+                .tags("operation", "refresh", "outcome", "unknown", "error", "BadCredentialsException").timer().count());
+    }
+}
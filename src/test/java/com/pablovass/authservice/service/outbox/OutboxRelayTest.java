@@ -0,0 +1,174 @@
+package com.pablovass.authservice.service.outbox;
+
+import com.pablovass.authservice.domain.model.entity.OutboxEvent;
+import com.pablovass.authservice.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Outbox Relay Unit Tests")
+class OutboxRelayTest {
+
+    private OutboxEventRepository outboxEventRepository;
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        outboxEventRepository = mock(OutboxEventRepository.class);
+        kafkaTemplate = mock(KafkaTemplate.class);
+        relay = new OutboxRelay(outboxEventRepository, kafkaTemplate, mock(PlatformTransactionManager.class),
+            new SimpleMeterRegistry(), 10, 1_000L, 3, 86_400_000L);
+        when(outboxEventRepository.tryLockRelay(OutboxRelay.RELAY_LOCK_ID)).thenReturn(true);
+    }
+
+    @Test
+    @DisplayName("Should mark confirmed events as sent and keep failed ones pending")
+    void relayBatch_ShouldMarkOnlyConfirmedEvents() {
+        OutboxEvent confirmed = event(1L, "{\"userId\":1}");
+        OutboxEvent rejected = event(2L, "{\"userId\":2}");
+        when(outboxEventRepository.lockNextBatch(10)).thenReturn(List.of(confirmed, rejected));
+        when(kafkaTemplate.send(argThat((ProducerRecord<String, byte[]> record) -> record != null && "1".equals(record.key()))))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        when(kafkaTemplate.send(argThat((ProducerRecord<String, byte[]> record) -> record != null && "2".equals(record.key()))))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        int sent = relay.relayBatch();
+
+        assertEquals(1, sent);
+        assertNotNull(confirmed.getSentAt());
+        assertNull(rejected.getSentAt());
+        assertEquals(1, rejected.getAttempts());
+        verify(kafkaTemplate).flush();
+    }
+
+    @Test
+    @DisplayName("Should keep later events of an aggregate pending when an earlier one is not confirmed")
+    void relayBatch_ShouldHoldAggregate_WhenEarlierEventFails() {
+        OutboxEvent failed = event(1L, "7", "{\"seq\":1}");
+        OutboxEvent confirmedAfterFailure = event(2L, "7", "{\"seq\":2}");
+        OutboxEvent otherAggregate = event(3L, "8", "{\"seq\":1}");
+        when(outboxEventRepository.lockNextBatch(10)).thenReturn(List.of(failed, confirmedAfterFailure, otherAggregate));
+        when(kafkaTemplate.send(argThat((ProducerRecord<String, byte[]> record) -> record != null && "7".equals(record.key()))))
+                .thenReturn(delayedFailure(), CompletableFuture.completedFuture(null));
+        when(kafkaTemplate.send(argThat((ProducerRecord<String, byte[]> record) -> record != null && "8".equals(record.key()))))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        int sent = relay.relayBatch();
+
+        assertEquals(1, sent);
+        assertNull(failed.getSentAt());
+        assertEquals(1, failed.getAttempts());
+        assertNull(confirmedAfterFailure.getSentAt());
+        assertEquals(0, confirmedAfterFailure.getAttempts());
+        assertNotNull(otherAggregate.getSentAt());
+    }
+
+    @Test
+    @DisplayName("Should not send later events of an aggregate once an earlier send fails synchronously")
+    void relayBatch_ShouldSkipAggregate_WhenSendFailsSynchronously() {
+        OutboxEvent failed = event(1L, "7", "{\"seq\":1}");
+        OutboxEvent next = event(2L, "7", "{\"seq\":2}");
+        when(outboxEventRepository.lockNextBatch(10)).thenReturn(List.of(failed, next));
+        when(kafkaTemplate.send(argThat((ProducerRecord<String, byte[]> record) -> record != null && "7".equals(record.key()))))
+                .thenThrow(new IllegalStateException("metadata unavailable"));
+
+        assertEquals(0, relay.relayBatch());
+
+        verify(kafkaTemplate, times(1)).send(argThat((ProducerRecord<String, byte[]> record) -> record != null && "7".equals(record.key())));
+        assertEquals(1, failed.getAttempts());
+        assertEquals(0, next.getAttempts());
+    }
+
+    @Test
+    @DisplayName("Should park an event once it reaches the maximum number of attempts")
+    void relayBatch_ShouldParkEvent_WhenAttemptsAreExhausted() {
+        OutboxEvent poison = event(1L, "{\"userId\":1}");
+        poison.setAttempts(2);
+        when(outboxEventRepository.lockNextBatch(10)).thenReturn(List.of(poison));
+        when(kafkaTemplate.send(argThat((ProducerRecord<String, byte[]> record) -> record != null && "1".equals(record.key()))))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("record too large")));
+
+        assertEquals(0, relay.relayBatch());
+
+        assertEquals(3, poison.getAttempts());
+        assertNotNull(poison.getParkedAt());
+        assertNull(poison.getSentAt());
+    }
+
+    @Test
+    @DisplayName("Should skip the cycle while another node holds the relay lock")
+    void relayBatch_ShouldDoNothing_WhenAnotherNodeIsRelaying() {
+        when(outboxEventRepository.tryLockRelay(OutboxRelay.RELAY_LOCK_ID)).thenReturn(false);
+
+        assertEquals(0, relay.relayBatch());
+        verify(outboxEventRepository, never()).lockNextBatch(anyInt());
+        verify(kafkaTemplate, never()).flush();
+    }
+
+    @Test
+    @DisplayName("Should not touch Kafka when the outbox is empty")
+    void relayBatch_ShouldDoNothing_WhenOutboxIsEmpty() {
+        when(outboxEventRepository.lockNextBatch(anyInt())).thenReturn(List.of());
+
+        assertEquals(0, relay.relayBatch());
+        verify(kafkaTemplate, never()).flush();
+    }
+
+    @Test
+    @DisplayName("Should describe the payload format in the record headers")
+    void toRecord_ShouldAddFormatHeaders() {
+        OutboxEvent event = event(1L, "{}");
+        event.setContentType("avro/binary");
+        event.setSchemaVersion(3);
+
+        ProducerRecord<String, byte[]> record = OutboxRelay.toRecord(event);
+
+        assertEquals("1", record.key());
+        assertEquals("avro/binary", new String(record.headers().lastHeader("content-type").value(), StandardCharsets.UTF_8));
+        assertEquals("3", new String(record.headers().lastHeader("schema-version").value(), StandardCharsets.UTF_8));
+    }
+
+    private static CompletableFuture<SendResult<String, byte[]>> delayedFailure() {
+        // Falla después de enviarse, como un NOT_ENOUGH_REPLICAS del broker
+        return CompletableFuture.supplyAsync(() -> {
+            throw new IllegalStateException("broker down");
+        }, CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS));
+    }
+
+    private static OutboxEvent event(Long id, String json) {
+        return event(id, String.valueOf(id), json);
+    }
+
+    private static OutboxEvent event(Long id, String aggregateId, String json) {
+        return OutboxEvent.builder()
+                .id(id)
+                .topic("user-events")
+                .aggregateId(aggregateId)
+                .eventType("UserLoggedInEvent")
+                .payload(json.getBytes(StandardCharsets.UTF_8))
+                .build();
+    }
+}
@@ -0,0 +1,117 @@
+package com.pablovass.authservice.service.ratelimit;
+
+import com.pablovass.authservice.service.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Login Rate Limiter Unit Tests")
+@SuppressWarnings("unchecked")
+class LoginRateLimiterTest {
+
+    private RedisTemplate<String, String> redisTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private LoginRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        limiter = new LoginRateLimiter(redisTemplate, meterRegistry, 1_000L);
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "ipCapacity", 2L);
+        ReflectionTestUtils.setField(limiter, "ipRefillPerSecond", 0.01);
+        ReflectionTestUtils.setField(limiter, "emailCapacity", 10L);
+        ReflectionTestUtils.setField(limiter, "emailRefillPerSecond", 0.01);
+        ReflectionTestUtils.setField(limiter, "lookupCapacity", 2L);
+        ReflectionTestUtils.setField(limiter, "lookupRefillPerSecond", 0.01);
+        ReflectionTestUtils.setField(limiter, "windowMillis", 60_000L);
+        ReflectionTestUtils.setField(limiter, "ipLimit", 60L);
+        ReflectionTestUtils.setField(limiter, "emailLimit", 10L);
+    }
+
+    @Test
+    @DisplayName("Should reject a local burst from one IP before reaching Redis")
+    void acquire_ShouldReject_WhenLocalIpBucketIsEmpty() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(List.of("ADMIT"));
+
+        limiter.acquire("10.0.0.1", "a@example.com");
+        limiter.acquire("10.0.0.1", "b@example.com");
+        TooManyRequestsException ex = assertThrows(TooManyRequestsException.class,
+            () -> limiter.acquire("10.0.0.1", "c@example.com"));
+
+        assertEquals(100, ex.getRetryAfterSeconds());
+        // Dos intentos admitidos: una llamada para la IP y otra para la cuenta en cada uno
+        verify(redisTemplate, times(4)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+        assertEquals(1.0, meterRegistry.counter("auth.login.attempts", "result", "rejected", "reason", "ip").count());
+    }
+
+    @Test
+    @DisplayName("Should reject with the shared window's Retry-After when Redis rejects")
+    void acquire_ShouldReject_WhenAccountIsLocked() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(List.of("ADMIT"), List.of("REJECT", "4500", "locked"));
+
+        TooManyRequestsException ex = assertThrows(TooManyRequestsException.class,
+            () -> limiter.acquire("10.0.0.1", " Pilot@Example.com "));
+
+        assertEquals(5, ex.getRetryAfterSeconds());
+        assertEquals(1.0, meterRegistry.counter("auth.login.attempts", "result", "rejected", "reason", "locked").count());
+    }
+
+    @Test
+    @DisplayName("Should keep every script call within one Redis Cluster hash slot")
+    void acquire_ShouldTagKeysPerSubject_WhenCheckingSharedWindows() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(List.of("ADMIT"));
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+
+        limiter.acquire("10.0.0.1", " Pilot@Example.com ");
+
+        verify(redisTemplate, times(2)).execute(any(RedisScript.class), keys.capture(), any(Object[].class));
+        assertEquals(List.of("login_rl:ip:{10.0.0.1}"), keys.getAllValues().get(0));
+        assertEquals(List.of("login_rl:email:{pilot@example.com}", "login_lock:{pilot@example.com}"),
+            keys.getAllValues().get(1));
+    }
+
+    @Test
+    @DisplayName("Should fall back to the local tier when Redis is unavailable")
+    void acquire_ShouldAdmit_WhenRedisIsDown() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        assertDoesNotThrow(() -> limiter.acquire("10.0.0.1", "a@example.com"));
+    }
+
+    @Test
+    @DisplayName("Should limit availability lookups per IP without consuming login attempts")
+    void acquireLookup_ShouldReject_WhenLookupBucketIsEmpty() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(List.of("ADMIT"));
+
+        limiter.acquireLookup("10.0.0.1");
+        limiter.acquireLookup("10.0.0.1");
+        TooManyRequestsException ex = assertThrows(TooManyRequestsException.class, () -> limiter.acquireLookup("10.0.0.1"));
+
+        assertEquals(100, ex.getRetryAfterSeconds());
+        assertDoesNotThrow(() -> limiter.acquireLookup("10.0.0.2"));
+        assertDoesNotThrow(() -> limiter.acquire("10.0.0.1", "a@example.com"));
+        assertEquals(1.0, meterRegistry.counter("auth.login.attempts", "result", "rejected", "reason", "lookup").count());
+    }
+}
@@ -0,0 +1,95 @@
+package com.pablovass.authservice.service.revocation;
+
+import com.pablovass.authservice.domain.model.Role;
+import com.pablovass.authservice.service.token.VerifiedToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Token Revocation Service Unit Tests")
+class TokenRevocationServiceTest {
+
+    private RedisTemplate<String, String> redisTemplate;
+    private TokenRevocationService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        service = new TokenRevocationService(redisTemplate, new SimpleMeterRegistry(), 60_000L,
+            "auth:token-revocations", 1_000, 0.001);
+    }
+
+    @Test
+    @DisplayName("Should accept a token that was never revoked without calling Redis")
+    void isRevoked_ShouldSkipRedis_WhenFilterHasNoEntry() {
+        assertFalse(service.isRevoked(token(42L, "jti-ok", 0L)));
+
+        verify(redisTemplate, never()).hasKey(anyString());
+    }
+
+    @Test
+    @DisplayName("Should confirm a revoked jti received from another node against Redis")
+    void isRevoked_ShouldReturnTrue_WhenJtiWasRevoked() {
+        when(redisTemplate.hasKey("revoked_jti:jti-gone")).thenReturn(true);
+
+        service.handleMessage("jti jti-gone");
+
+        assertTrue(service.isRevoked(token(42L, "jti-gone", 0L)));
+    }
+
+    @Test
+    @DisplayName("Should revoke every token of a revoked session")
+    void isRevoked_ShouldReturnTrue_WhenSessionWasRevoked() {
+        when(redisTemplate.hasKey("revoked_sid:sid-42")).thenReturn(true);
+
+        service.handleMessage("sid sid-42");
+
+        assertTrue(service.isRevoked(token(42L, "jti-a", 0L)));
+        assertTrue(service.isRevoked(token(42L, "jti-b", 0L)));
+        assertFalse(service.isRevoked(token(7L, "jti-c", 0L)));
+    }
+
+    @Test
+    @DisplayName("Should treat a possibly revoked token as revoked when Redis is unavailable")
+    void isRevoked_ShouldFailClosed_WhenRedisIsDown() {
+        when(redisTemplate.hasKey("revoked_jti:jti-gone")).thenThrow(new RedisConnectionFailureException("down"));
+
+        service.handleMessage("jti jti-gone");
+
+        assertTrue(service.isRevoked(token(42L, "jti-gone", 0L)));
+    }
+
+    @Test
+    @DisplayName("Should revoke tokens issued before the user's current epoch")
+    void isRevoked_ShouldReturnTrue_WhenTokenEpochIsOlder() {
+        long epoch = System.currentTimeMillis();
+
+        service.handleMessage("epoch 42 " + epoch);
+        service.handleMessage("epoch 42 " + (epoch - 1));
+
+        assertEquals(epoch, service.currentEpoch(42L));
+        assertTrue(service.isRevoked(token(42L, "jti-old", 0L)));
+        assertFalse(service.isRevoked(token(42L, "jti-new", epoch)));
+        assertFalse(service.isRevoked(token(7L, "jti-other", 0L)));
+    }
+
+    private static VerifiedToken token(Long userId, String tokenId, long epoch) {
+        return new VerifiedToken(userId, "pilot", Role.DEFAULT_MASK, null, null,
+            Instant.now(), Instant.now().plusSeconds(60), tokenId, "sid-" + userId, epoch);
+    }
+}
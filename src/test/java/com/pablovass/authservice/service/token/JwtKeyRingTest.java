@@ -0,0 +1,149 @@
+package com.pablovass.authservice.service.token;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Jwt Key Ring Unit Tests")
+class JwtKeyRingTest {
+
+    private static final String SECRET = "test-secret-key-with-at-least-256-bits-for-the-hs256-algorithm";
+    private static final String ENCRYPTION_KEY = "TpsjDxNees0FcheENRdcoceJzmrwXQCjBblWjM5Pjx0=";
+    private static final String OTHER_ENCRYPTION_KEY = "Wv0Gm4bH2Qe1kX8yLr5NcTz7uJ3sAp6DfVi9oKq0MbE=";
+
+    // Contenido del hash jwt:keyring compartido por los nodos
+    private Map<Object, Object> keyring;
+    private RedisTemplate<String, String> redisTemplate;
+    private ValueOperations<String, String> valueOperations;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        keyring = new HashMap<>();
+        redisTemplate = mock(RedisTemplate.class);
+        HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(hashOperations.entries(anyString())).thenAnswer(invocation -> new HashMap<>(keyring));
+        doAnswer(invocation -> keyring.put(invocation.getArgument(1), invocation.getArgument(2)))
+            .when(hashOperations).put(anyString(), any(), any());
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+    }
+
+    @Test
+    @DisplayName("Should store the private key encrypted and let another node load it and verify its tokens")
+    void init_ShouldShareEncryptedKey_WhenAnotherNodeLoadsKeyring() {
+        JwtKeyRing first = newKeyRing(ENCRYPTION_KEY, 86_400_000L);
+        JwtSigningKey signingKey = first.signingKey();
+
+        String stored = keyring.get(signingKey.kid()).toString();
+        assertFalse(stored.contains(Base64.getEncoder().encodeToString(signingKey.privateKey().getEncoded())));
+
+        JwtKeyRing second = newKeyRing(ENCRYPTION_KEY, 86_400_000L);
+        assertEquals(signingKey.kid(), second.signingKey().kid());
+        assertEquals(signingKey.privateKey(), second.signingKey().privateKey());
+
+        String token = Jwts.builder().header().keyId(signingKey.kid()).and().subject("42")
+                .signWith(signingKey.privateKey(), signingKey.signatureAlgorithm()).compact();
+        assertEquals("42", Jwts.parser().keyLocator(second).build().parseSignedClaims(token).getPayload().getSubject());
+    }
+
+    @Test
+    @DisplayName("Should ignore keys encrypted with another encryption key or tampered with")
+    void reload_ShouldSkipEntry_WhenKeyCannotBeDecrypted() {
+        JwtSigningKey original = newKeyRing(ENCRYPTION_KEY, 86_400_000L).signingKey();
+        String stored = keyring.get(original.kid()).toString();
+
+        JwtKeyRing foreign = newKeyRing(OTHER_ENCRYPTION_KEY, 86_400_000L);
+        assertNotEquals(original.kid(), foreign.signingKey().kid());
+
+        // Prolongar la vigencia de la entrada invalida la autenticación del cifrado
+        String[] parts = stored.split("\\|");
+        parts[3] = String.valueOf(Long.parseLong(parts[3]) + 86_400_000L);
+        keyring.clear();
+        keyring.put(original.kid(), String.join("|", parts));
+        JwtKeyRing tampered = newKeyRing(ENCRYPTION_KEY, 86_400_000L);
+        assertNotEquals(original.kid(), tampered.signingKey().kid());
+        assertTrue(tampered.publishedKeys().stream().noneMatch(key -> key.kid().equals(original.kid())));
+    }
+
+    @Test
+    @DisplayName("Should pre-publish the next key once the active one enters the publish lead")
+    void refresh_ShouldRotateKey_WhenActiveKeyIsAboutToExpire() {
+        // Intervalo de rotación más corto que la antelación de publicación: la siguiente clave se genera ya
+        JwtKeyRing keyRing = newKeyRing(ENCRYPTION_KEY, 600_000L);
+        String active = keyRing.signingKey().kid();
+
+        keyRing.refresh();
+
+        assertEquals(2, keyring.size());
+        assertEquals(2, keyRing.publishedKeys().size());
+        assertEquals(active, keyRing.signingKey().kid());
+        JwtKeyRing otherNode = newKeyRing(ENCRYPTION_KEY, 600_000L);
+        assertEquals(2, otherNode.publishedKeys().size());
+        assertTrue(keyring.containsKey(otherNode.publishedKeys().get(1).kid()));
+        // El lock se libera comprobando el propietario, nunca con un DEL directo
+        verify(redisTemplate, never()).delete("jwt:keyring:lock");
+        verify(redisTemplate, atLeastOnce())
+            .execute(any(RedisScript.class), eq(List.of("jwt:keyring:lock")), anyString());
+    }
+
+    @Test
+    @DisplayName("Should accept legacy HS256 tokens only for one access token lifetime after the cut-over")
+    void locate_ShouldRejectLegacyToken_WhenCutoverWindowHasPassed() {
+        String legacy = Jwts.builder().subject("9")
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), Jwts.SIG.HS256).compact();
+
+        when(valueOperations.get("jwt:keyring:legacy-cutover")).thenReturn(String.valueOf(System.currentTimeMillis()));
+        JwtKeyRing duringMigration = newKeyRing(ENCRYPTION_KEY, 86_400_000L);
+        assertEquals("9", Jwts.parser().keyLocator(duringMigration).build().parseSignedClaims(legacy).getPayload().getSubject());
+
+        when(valueOperations.get("jwt:keyring:legacy-cutover")).thenReturn(String.valueOf(System.currentTimeMillis() - 120_000L));
+        JwtKeyRing afterMigration = newKeyRing(ENCRYPTION_KEY, 86_400_000L);
+        assertThrows(JwtException.class, () -> Jwts.parser().keyLocator(afterMigration).build().parseSignedClaims(legacy));
+    }
+
+    private JwtKeyRing newKeyRing(String encryptionKey, long rotationInterval) {
+        JwtKeyRing keyRing = new JwtKeyRing(redisTemplate);
+        ReflectionTestUtils.setField(keyRing, "secret", SECRET);
+        ReflectionTestUtils.setField(keyRing, "accessTokenExpiration", 60_000L);
+        ReflectionTestUtils.setField(keyRing, "algorithm", JwtSigningKey.ES256);
+        ReflectionTestUtils.setField(keyRing, "acceptLegacyHs256", true);
+        ReflectionTestUtils.setField(keyRing, "rotationInterval", rotationInterval);
+        ReflectionTestUtils.setField(keyRing, "publishLead", 900_000L);
+        ReflectionTestUtils.setField(keyRing, "encryptionKey", encryptionKey);
+        ReflectionTestUtils.invokeMethod(keyRing, "init");
+        return keyRing;
+    }
+}
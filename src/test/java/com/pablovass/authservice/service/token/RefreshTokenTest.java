@@ -0,0 +1,61 @@
+package com.pablovass.authservice.service.token;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DisplayName("Refresh Token Unit Tests")
+class RefreshTokenTest {
+
+    @Test
+    @DisplayName("Should round-trip the user, session and secret through the token value")
+    void parse_ShouldReturnSameToken_WhenValueWasIssued() {
+        RefreshToken issued = RefreshToken.newSession(42L);
+
+        RefreshToken parsed = RefreshToken.parse(issued.value());
+
+        assertEquals(issued, parsed);
+        assertEquals(issued.secretHash(), parsed.secretHash());
+        assertFalse(issued.toString().contains(issued.secret()));
+    }
+
+    @Test
+    @DisplayName("Should reject tokens issued before per-device sessions")
+    void parse_ShouldReturnNull_WhenTokenHasLegacyFormat() {
+        assertNull(RefreshToken.parse(UUID.randomUUID().toString()));
+        assertNull(RefreshToken.parse("abc.session.secret"));
+    }
+
+    @Test
+    @DisplayName("Should keep the session and change the secret on rotation")
+    void rotate_ShouldKeepSession_WhenSecretIsRotated() {
+        RefreshToken issued = RefreshToken.newSession(42L);
+
+        RefreshToken rotated = issued.rotate();
+
+        assertEquals(issued.sessionId(), rotated.sessionId());
+        assertNotEquals(issued.secretHash(), rotated.secretHash());
+    }
+
+    @Test
+    @DisplayName("Should parse a stored session entry whose user agent contains the separator")
+    void parseSession_ShouldKeepUserAgent_WhenItContainsSeparator() {
+        Instant now = Instant.ofEpochMilli(1_700_000_000_000L);
+        String entry = RefreshSession.newEntry("hash", now, now.plusSeconds(60), "10.0.0.1", "Agent|1.0");
+
+        RefreshSession session = RefreshSession.parse("sid", entry);
+
+        assertEquals(now, session.createdAt());
+        assertEquals(now.plusSeconds(60), session.expiresAt());
+        assertEquals("10.0.0.1", session.ipAddress());
+        assertEquals("Agent|1.0", session.userAgent());
+        assertNull(RefreshSession.parse("sid", "corrupt"));
+    }
+}
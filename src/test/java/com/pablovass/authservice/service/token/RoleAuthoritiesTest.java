@@ -0,0 +1,45 @@
+package com.pablovass.authservice.service.token;
+
+import com.pablovass.authservice.domain.model.Role;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Role Authorities Unit Tests")
+class RoleAuthoritiesTest {
+
+    @Test
+    @DisplayName("Should expand a role mask into its roles and permissions")
+    void of_ShouldReturnRolesAndPermissions_WhenMaskHasSeveralRoles() {
+        List<String> authorities = names(RoleAuthorities.of(Role.mask(Set.of(Role.USER, Role.ADMIN))));
+
+        assertTrue(authorities.containsAll(List.of("ROLE_USER", "ROLE_ADMIN", "profile:read", "users:import")));
+        assertEquals(List.of("ROLE_USER", "profile:read"), names(RoleAuthorities.of(Role.DEFAULT_MASK)));
+    }
+
+    @Test
+    @DisplayName("Should return the same interned list for the same mask")
+    void of_ShouldReturnSameInstance_WhenMaskIsRepeated() {
+        int mask = Role.mask(Set.of(Role.ADMIN));
+
+        assertSame(RoleAuthorities.of(mask), RoleAuthorities.of(mask));
+        assertSame(RoleAuthorities.of(mask).getFirst(), RoleAuthorities.of(Role.mask(Set.of(Role.ADMIN, Role.SERVICE))).get(0));
+    }
+
+    @Test
+    @DisplayName("Should ignore bits that do not map to a role")
+    void of_ShouldIgnoreUnknownBits_WhenMaskComesFromNewerIssuer() {
+        assertEquals(RoleAuthorities.of(Role.DEFAULT_MASK), RoleAuthorities.of(Role.DEFAULT_MASK | 1 << 20));
+    }
+
+    private static List<String> names(List<GrantedAuthority> authorities) {
+        return authorities.stream().map(GrantedAuthority::getAuthority).toList();
+    }
+}
@@ -0,0 +1,90 @@
+package com.pablovass.authservice.service.token;
+
+import com.pablovass.authservice.controller.dto.TokenIntrospection;
+import com.pablovass.authservice.domain.model.Role;
+import com.pablovass.authservice.service.JwtService;
+import com.pablovass.authservice.service.revocation.TokenRevocationService;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Token Introspection Service Unit Tests")
+class TokenIntrospectionServiceTest {
+
+    private JwtService jwtService;
+    private TokenRevocationService tokenRevocationService;
+    private SimpleMeterRegistry meterRegistry;
+    private TokenIntrospectionService service;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = mock(JwtService.class);
+        tokenRevocationService = mock(TokenRevocationService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        service = new TokenIntrospectionService(jwtService, tokenRevocationService, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should answer every token of a batch in order with its status")
+    void introspect_ShouldReturnOneResultPerToken_WhenBatchIsMixed() {
+        VerifiedToken valid = token("jti-ok", Instant.now().plusSeconds(60));
+        VerifiedToken revoked = token("jti-gone", Instant.now().plusSeconds(60));
+        when(jwtService.verify("valid")).thenReturn(valid);
+        when(jwtService.verify("revoked")).thenReturn(revoked);
+        when(jwtService.verify("expired")).thenReturn(token("jti-old", Instant.now().minusSeconds(1)));
+        when(jwtService.verify("forged")).thenThrow(new SignatureException("bad signature"));
+        when(tokenRevocationService.isRevoked(revoked)).thenReturn(true);
+
+        List<TokenIntrospection> results = service.introspect(List.of("valid", "revoked", "expired", "forged", ""));
+
+        assertEquals(List.of("active", "revoked", "expired", "bad_signature", "malformed"),
+            results.stream().map(TokenIntrospection::status).toList());
+        TokenIntrospection active = results.get(0);
+        assertTrue(active.active());
+        assertEquals(42L, active.userId());
+        assertEquals("jti-ok", active.tokenId());
+        assertTrue(active.authorities().contains("ROLE_USER"));
+        assertFalse(results.get(1).active());
+        assertNull(results.get(1).userId());
+        assertEquals(1.0, meterRegistry.counter("auth.introspect", "outcome", "revoked").count());
+    }
+
+    @Test
+    @DisplayName("Should stream one NDJSON result per token line and skip blank lines")
+    void introspect_ShouldWriteNdjson_WhenInputIsStreamed() throws Exception {
+        when(jwtService.verify("valid")).thenReturn(token("jti-ok", Instant.now().plusSeconds(60)));
+        when(jwtService.verify("garbage")).thenThrow(new MalformedJwtException("not a jwt"));
+        String input = "{\"token\":\"valid\"}\n\n\"garbage\"\nnot-json\n";
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long count = service.introspect(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, count);
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].contains("\"status\":\"active\"") && lines[0].contains("\"tokenId\":\"jti-ok\""));
+        assertEquals("{\"active\":false,\"status\":\"malformed\"}", lines[1]);
+        assertEquals("{\"active\":false,\"status\":\"malformed\"}", lines[2]);
+    }
+
+    private static VerifiedToken token(String tokenId, Instant expiresAt) {
+        return new VerifiedToken(42L, "pilot", Role.DEFAULT_MASK, null, null,
+            Instant.now(), expiresAt, tokenId, "sid-42", 0L);
+    }
+}